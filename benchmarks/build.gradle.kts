@@ -0,0 +1,24 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+description = "JMH benchmarks of the mock interceptor hot path"
+
+java.toolchain.languageVersion.set(JavaLanguageVersion.of(17))
+
+dependencies {
+    jmh(project(":mock-client"))
+    jmh(libs.okhttp)
+}
+
+jmh {
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    profilers.add("gc")
+    resultFormat = "JSON"
+
+    // i.e. `./gradlew :benchmarks:jmh -Pjmh.includes=InterceptorBenchmark`
+    providers.gradleProperty("jmh.includes").orNull?.let { includes.add(it) }
+}
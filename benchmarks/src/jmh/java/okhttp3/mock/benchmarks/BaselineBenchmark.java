@@ -0,0 +1,34 @@
+package okhttp3.mock.benchmarks;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+/**
+ * The cost of a call through a plain no-op interceptor, to compare the other benchmarks with
+ */
+@State(Scope.Benchmark)
+public class BaselineBenchmark {
+    private OkHttpClient client;
+    private Request request;
+
+    @Setup
+    public void setup() {
+        client = Clients.client(chain -> chain.proceed(chain.request()));
+        request = new Request.Builder().url("https://example.com/api/0").get().build();
+    }
+
+    @Benchmark
+    public int noOpInterceptor() throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            return response.code();
+        }
+    }
+
+}
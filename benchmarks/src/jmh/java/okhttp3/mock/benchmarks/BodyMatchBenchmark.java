@@ -0,0 +1,67 @@
+package okhttp3.mock.benchmarks;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mock.Behavior;
+import okhttp3.mock.MockInterceptor;
+import okhttp3.mock.Rule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * The cost of matching the body of a request, depending on its size and the kind of matcher
+ */
+@State(Scope.Benchmark)
+public class BodyMatchBenchmark {
+    private static final String URL = "https://example.com/api/upload";
+
+    @Param({"1024", "65536", "1048576", "10485760"})
+    public int size;
+
+    @Param({"literal", "regex"})
+    public String matchers;
+
+    private OkHttpClient client;
+    private Request request;
+
+    @Setup
+    public void setup() {
+        char[] chars = new char[size];
+        Arrays.fill(chars, 'a');
+        String payload = new String(chars);
+
+        MockInterceptor interceptor = new MockInterceptor(Behavior.UNORDERED);
+        Rule.Builder rule = interceptor.addRule().post(URL).anyTimes();
+        if ("literal".equals(matchers)) {
+            rule.body(payload);
+
+        } else {
+            rule.bodyMatches(Pattern.compile("[a-z]+"));
+        }
+        rule.respond(200);
+        client = Clients.client(interceptor);
+
+        request = new Request.Builder()
+            .url(URL)
+            .post(RequestBody.create(payload, MediaType.get("text/plain")))
+            .build();
+    }
+
+    @Benchmark
+    public int matchBody() throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            return response.code();
+        }
+    }
+
+}
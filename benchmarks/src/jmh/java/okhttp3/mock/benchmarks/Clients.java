@@ -0,0 +1,40 @@
+package okhttp3.mock.benchmarks;
+
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Helpers to build the {@link OkHttpClient}s under benchmark
+ */
+final class Clients {
+
+    /**
+     * A no-op interceptor answering every request with an empty response, so no call reaches the network.
+     * It's the backend of the {@link okhttp3.mock.Behavior#RELAYED} requests, and the baseline of the benchmarks.
+     */
+    static final Interceptor TERMINAL = chain -> new Response.Builder()
+        .request(chain.request())
+        .protocol(Protocol.HTTP_1_1)
+        .code(200)
+        .message("OK")
+        .body(ResponseBody.create(null, ""))
+        .build();
+
+    /**
+     * @param interceptor the interceptor under benchmark
+     * @return a client running the given interceptor before the {@link #TERMINAL} one
+     */
+    static OkHttpClient client(Interceptor interceptor) {
+        return new OkHttpClient.Builder()
+            .addInterceptor(interceptor)
+            .addInterceptor(TERMINAL)
+            .build();
+    }
+
+    private Clients() {
+    }
+
+}
@@ -0,0 +1,99 @@
+package okhttp3.mock.benchmarks;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mock.Behavior;
+import okhttp3.mock.MockInterceptor;
+import okhttp3.mock.Rule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The cost of dispatching a request through a {@link MockInterceptor}, depending on its number of rules,
+ * its {@link Behavior} and the kind of matchers of its rules.
+ * <p>
+ * The request is matched by the last rule on {@link Behavior#SEQUENTIAL} and {@link Behavior#UNORDERED}, and by none
+ * on {@link Behavior#RELAYED}. As a {@link Behavior#SEQUENTIAL} interceptor can only match its first pending rule,
+ * all the rules before the last one are one-shot ones, consumed while setting up.
+ * <p>
+ * The interceptor compacts consumed rules out of its dispatch once calls iterated past enough of them, so on
+ * {@link Behavior#SEQUENTIAL} the consumed rules are registered again before every call: it measures the scan past
+ * them, not the compacted steady state. As that setup runs per invocation, its timing overhead is included too.
+ */
+@State(Scope.Benchmark)
+public class InterceptorBenchmark {
+    private static final String URL = "https://example.com/api/";
+
+    @Param({"1", "100", "10000", "100000"})
+    public int rules;
+
+    @Param({"SEQUENTIAL", "UNORDERED", "RELAYED"})
+    public Behavior behavior;
+
+    @Param({"literal", "regex"})
+    public String matchers;
+
+    private MockInterceptor interceptor;
+    private List<Rule> registered;
+    private OkHttpClient client;
+    private Request request;
+
+    @Setup
+    public void setup() throws IOException {
+        boolean sequential = behavior == Behavior.SEQUENTIAL;
+        interceptor = new MockInterceptor(behavior);
+        for (int i = 0; i < rules; i++) {
+            Rule.Builder rule = interceptor.addRule().get();
+            if (sequential && i < rules - 1) {
+                rule.times(1);
+
+            } else {
+                rule.anyTimes();
+            }
+            if ("literal".equals(matchers)) {
+                rule.url(URL + i);
+
+            } else {
+                rule.urlMatches(Pattern.compile("https://example\\.com/api/" + i + "(\\?.*)?"));
+            }
+            rule.respond(200);
+        }
+        client = Clients.client(interceptor);
+
+        if (sequential) {
+            for (int i = 0; i < rules - 1; i++) {
+                client.newCall(new Request.Builder().url(URL + i).get().build()).execute().close();
+            }
+            registered = interceptor.getRules();
+        }
+        int target = behavior == Behavior.RELAYED ? rules : rules - 1;
+        request = new Request.Builder().url(URL + target).get().build();
+    }
+
+    /**
+     * Registers the consumed rules again, as the previous call may have compacted them away
+     */
+    @Setup(Level.Invocation)
+    public void restore() {
+        if (registered != null) {
+            interceptor.replaceRules(registered);
+        }
+    }
+
+    @Benchmark
+    public int intercept() throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            return response.code();
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package okhttp3.mock.benchmarks;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mock.Behavior;
+import okhttp3.mock.MockInterceptor;
+import okio.Okio;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+
+/**
+ * The cost of serving the body of an {@code anyTimes()} rule, from a single thread and from many concurrent ones
+ */
+@State(Scope.Benchmark)
+public class RepeatableBodyBenchmark {
+    private static final String URL = "https://example.com/api/download";
+
+    @Param({"1024", "65536", "1048576"})
+    public int size;
+
+    private OkHttpClient client;
+    private Request request;
+
+    @Setup
+    public void setup() {
+        MockInterceptor interceptor = new MockInterceptor(Behavior.UNORDERED);
+        interceptor.addRule()
+            .get(URL)
+            .anyTimes()
+            .respond(new byte[size]);
+        client = Clients.client(interceptor);
+
+        request = new Request.Builder().url(URL).get().build();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long threads1() throws IOException {
+        return download();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long threads8() throws IOException {
+        return download();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long threads64() throws IOException {
+        return download();
+    }
+
+    private long download() throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            return response.body().source().readAll(Okio.blackhole());
+        }
+    }
+
+}
@@ -1,7 +1,9 @@
 @file:OptIn(ExperimentalAbiValidation::class)
 
 import org.jetbrains.kotlin.gradle.dsl.JvmDefaultMode
+import org.jetbrains.kotlin.gradle.dsl.JvmTarget
 import org.jetbrains.kotlin.gradle.dsl.abi.ExperimentalAbiValidation
+import org.jetbrains.kotlin.gradle.tasks.KotlinJvmCompile
 
 plugins {
     alias(libs.plugins.kotlin)
@@ -32,6 +34,50 @@ dependencies {
     testImplementation(libs.kotlin.test)
 }
 
+// Java Flight Recorder events (Java 11+), shipped as a multi-release JAR so Java 8 and Android consumers are unaffected
+val java11 by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+
+tasks.named<JavaCompile>(java11.compileJavaTaskName) {
+    javaCompiler = javaToolchains.compilerFor { languageVersion = JavaLanguageVersion.of(11) }
+}
+
+tasks.named<KotlinJvmCompile>(java11.getCompileTaskName("kotlin")) {
+    compilerOptions.jvmTarget = JvmTarget.JVM_11
+}
+
+// tests of the Java Flight Recorder events, run on Java 11 against the classes of the `java11` source set
+val java11Test by sourceSets.creating {
+    compileClasspath += java11.output + sourceSets.test.get().compileClasspath
+    runtimeClasspath += java11.output + sourceSets.test.get().runtimeClasspath
+}
+
+tasks.named<JavaCompile>(java11Test.compileJavaTaskName) {
+    javaCompiler = javaToolchains.compilerFor { languageVersion = JavaLanguageVersion.of(11) }
+}
+
+tasks.named<KotlinJvmCompile>(java11Test.getCompileTaskName("kotlin")) {
+    compilerOptions.jvmTarget = JvmTarget.JVM_11
+}
+
+val testJava11 by tasks.registering(Test::class) {
+    description = "Runs the tests of the Java Flight Recorder events on Java 11"
+    group = LifecycleBasePlugin.VERIFICATION_GROUP
+    testClassesDirs = java11Test.output.classesDirs
+    classpath = java11Test.runtimeClasspath
+    javaLauncher = javaToolchains.launcherFor { languageVersion = JavaLanguageVersion.of(11) }
+}
+
+tasks.check {
+    dependsOn(testJava11)
+}
+
+tasks.jar {
+    into("META-INF/versions/11") { from(java11.output) }
+    manifest.attributes("Multi-Release" to "true")
+}
+
 val originUrl = providers
     .exec { commandLine("git", "remote", "get-url", "origin") }
     .standardOutput.asText.map { it.trim() }
@@ -0,0 +1,58 @@
+package okhttp3.mock;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * An {@link InterceptorListener} committing an {@link InterceptEvent} for every intercepted request.
+ * <p>
+ * Loaded reflectively by {@link FlightRecorderEvents}, as it's only available on Java 11 or later.
+ */
+final class FlightRecorderListener implements InterceptorListener {
+
+    @Override
+    public void onMatched(Request request, Rule rule, Response response, Behavior behavior, int scannedRules, long matchNanos, long answerNanos) {
+        InterceptEvent event = new InterceptEvent();
+        if (event.isEnabled()) {
+            ResponseBody body = response.body();
+            event.outcome = "MATCHED";
+            event.rule = rule.toString();
+            event.answerTime = answerNanos;
+            event.delay = rule.getDelay();
+            event.code = response.code();
+            event.bodySize = body != null ? body.contentLength() : -1;
+            commit(event, request, behavior, scannedRules, matchNanos);
+        }
+    }
+
+    @Override
+    public void onRelayed(Request request, int scannedRules, long matchNanos) {
+        InterceptEvent event = new InterceptEvent();
+        if (event.isEnabled()) {
+            event.outcome = "RELAYED";
+            event.bodySize = -1;
+            commit(event, request, Behavior.RELAYED, scannedRules, matchNanos);
+        }
+    }
+
+    @Override
+    public void onUnmatched(Request request, Behavior behavior, int scannedRules, long matchNanos) {
+        InterceptEvent event = new InterceptEvent();
+        if (event.isEnabled()) {
+            event.outcome = "UNMATCHED";
+            event.bodySize = -1;
+            commit(event, request, behavior, scannedRules, matchNanos);
+        }
+    }
+
+    private static void commit(InterceptEvent event, Request request, Behavior behavior, int scannedRules, long matchNanos) {
+        event.method = request.method();
+        event.url = request.url().toString();
+        event.behavior = behavior.name();
+        event.scannedRules = scannedRules;
+        event.matchTime = matchNanos;
+        event.commit();
+    }
+
+}
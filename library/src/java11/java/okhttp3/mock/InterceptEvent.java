@@ -0,0 +1,63 @@
+package okhttp3.mock;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A request intercepted by a {@link MockInterceptor}
+ */
+@Name("okhttp3.mock.Intercept")
+@Label("Mock Intercept")
+@Category({"OkHttp", "Mock Client"})
+@Description("A request intercepted by a MockInterceptor")
+@StackTrace(false)
+final class InterceptEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("URL")
+    String url;
+
+    @Label("Outcome")
+    @Description("MATCHED, RELAYED or UNMATCHED")
+    String outcome;
+
+    @Label("Behavior")
+    String behavior;
+
+    @Label("Rule")
+    @Description("The rule which matched the request, if any")
+    String rule;
+
+    @Label("Scanned Rules")
+    int scannedRules;
+
+    @Label("Match Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long matchTime;
+
+    @Label("Answer Time")
+    @Description("Excluding the configured delay")
+    @Timespan(Timespan.NANOSECONDS)
+    long answerTime;
+
+    @Label("Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    long delay;
+
+    @Label("Response Code")
+    int code;
+
+    @Label("Body Size")
+    @Description("The length of the response body, -1 if unknown")
+    @DataAmount
+    long bodySize;
+
+}
@@ -0,0 +1,72 @@
+package okhttp3.mock;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static okhttp3.mock.HttpCode.HTTP_401_UNAUTHORIZED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlightRecorderListenerTest {
+    private static final String TEST_URL = "https://testserver/api/login";
+    private static final String EVENT_NAME = "okhttp3.mock.Intercept";
+
+    @Test
+    public void testInterceptEvent() throws IOException {
+        assertTrue(FlightRecorderEvents.isAvailable());
+
+        MockInterceptor interceptor = new MockInterceptor()
+            .addListener(FlightRecorderEvents.listener());
+        interceptor.addRule()
+            .get(TEST_URL)
+            .anyTimes()
+            .respond(HTTP_401_UNAUTHORIZED);
+        Rule rule = interceptor.getRules().get(0);
+        OkHttpClient client = new OkHttpClient.Builder()
+            .addInterceptor(interceptor)
+            .build();
+
+        Path file = Files.createTempFile("intercept", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT_NAME);
+            recording.start();
+            try (Response response = client.newCall(new Request.Builder().url(TEST_URL).build()).execute()) {
+                assertEquals(HTTP_401_UNAUTHORIZED, response.code());
+            }
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (EVENT_NAME.equals(event.getEventType().getName())) {
+                    events.add(event);
+                }
+            }
+            assertEquals(1, events.size());
+
+            RecordedEvent event = events.get(0);
+            assertEquals("MATCHED", event.getString("outcome"));
+            assertEquals("SEQUENTIAL", event.getString("behavior"));
+            assertEquals("GET", event.getString("method"));
+            assertEquals(TEST_URL, event.getString("url"));
+            assertEquals(rule.toString(), event.getString("rule"));
+            assertEquals(1, event.getInt("scannedRules"));
+            assertEquals(HTTP_401_UNAUTHORIZED, event.getInt("code"));
+
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package okhttp3.mock;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Factories of {@link RuleAnswer}s choosing between several others, so a single {@link Rule} can give different
+ * responses to successive requests, instead of registering a rule per response.
+ * <p>
+ * Example:
+ * <pre>{@code
+ *  interceptor.addRule()
+ *      .get()
+ *      .url("https://testserver/api/status")
+ *      .anyTimes()
+ *      .answer(Answers.sequence(
+ *          request -> new Response.Builder().code(200),
+ *          request -> new Response.Builder().code(503),
+ *          request -> new Response.Builder().code(200)));
+ * }</pre>
+ */
+public final class Answers {
+
+    /**
+     * Responds with each of the given answers in order, one per hit, repeating the last one once exhausted
+     *
+     * @param answers the answers
+     * @return the answer
+     */
+    public static RuleAnswer sequence(@NonNull RuleAnswer... answers) {
+        return new SequenceAnswer(Arrays.asList(answers.clone()), false);
+    }
+
+    /**
+     * Responds with each of the given answers in order, one per hit, starting over again once exhausted
+     *
+     * @param answers the answers
+     * @return the answer
+     */
+    public static RuleAnswer cycle(@NonNull RuleAnswer... answers) {
+        return new SequenceAnswer(Arrays.asList(answers.clone()), true);
+    }
+
+    /**
+     * Responds with one of the answers added to the returned builder per hit, chosen randomly by their weights.
+     * <p>
+     * The choices are reproducible: the same seed always gives the same sequence of answers.
+     *
+     * @param seed the seed of the random choices
+     * @return the builder of the answer
+     */
+    public static Weighted weighted(long seed) {
+        return new Weighted(seed);
+    }
+
+    public static final class Weighted {
+        private final long seed;
+        private final List<RuleAnswer> answers = new ArrayList<>();
+        private final List<Integer> weights = new ArrayList<>();
+
+        private Weighted(long seed) {
+            this.seed = seed;
+        }
+
+        /**
+         * @param weight the weight of the answer, relative to the others
+         * @param answer the answer
+         * @return this builder
+         */
+        public Weighted add(int weight, @NonNull RuleAnswer answer) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("Weight can't be less than 1!");
+            }
+            answers.add(answer);
+            weights.add(weight);
+            return this;
+        }
+
+        public RuleAnswer build() {
+            int[] weights = new int[this.weights.size()];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = this.weights.get(i);
+            }
+            return new WeightedAnswer(answers.toArray(new RuleAnswer[0]), weights, seed);
+        }
+
+    }
+
+    private Answers() {
+    }
+
+}
@@ -0,0 +1,31 @@
+package okhttp3.mock;
+
+import okio.Source;
+
+import java.io.IOException;
+
+/**
+ * A source of a response body that can be opened many times, to stream it again on every hit of a {@link Rule}
+ * without holding its whole content in memory.
+ * <p>
+ * Use {@link FileResources} or {@link ClasspathResources#source(String)} to create one, or implement it to supply
+ * the content from anywhere else.
+ */
+public interface BodySource {
+
+    /**
+     * Opens a new independent stream of the content
+     *
+     * @return the content as a {@link Source}
+     * @throws IOException if it can't be opened
+     */
+    Source open() throws IOException;
+
+    /**
+     * @return the length of the content, or {@code -1} if unknown
+     */
+    default long contentLength() {
+        return -1;
+    }
+
+}
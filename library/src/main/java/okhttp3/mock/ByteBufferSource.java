@@ -0,0 +1,47 @@
+package okhttp3.mock;
+
+import okio.Buffer;
+import okio.Source;
+import okio.Timeout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Source} reading the remaining content of a {@link ByteBuffer}, as a memory-mapped region of a file
+ * or the {@link okio.ByteString#asByteBuffer() content} of a {@link okio.ByteString}, without copying it up front
+ */
+final class ByteBufferSource implements Source {
+    private final ByteBuffer content;
+
+    /**
+     * @param content the content to read, not shared with anyone else as its position is moved
+     */
+    ByteBufferSource(ByteBuffer content) {
+        this.content = content;
+    }
+
+    @Override
+    public long read(Buffer sink, long byteCount) throws IOException {
+        int remaining = content.remaining();
+        if (remaining <= 0) {
+            return -1;
+        }
+        int count = (int) Math.min(byteCount, remaining);
+        ByteBuffer slice = content.duplicate();
+        slice.limit(slice.position() + count);
+        sink.write(slice);
+        content.position(content.position() + count);
+        return count;
+    }
+
+    @Override
+    public Timeout timeout() {
+        return Timeout.NONE;
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
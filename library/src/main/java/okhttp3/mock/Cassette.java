@@ -0,0 +1,259 @@
+package okhttp3.mock;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.mock.matchers.Matcher;
+import okhttp3.mock.matchers.RequestView;
+import okio.ByteString;
+import okio.Okio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * A read-only set of recorded HTTP interactions, replayed from a binary file written by {@link CassetteWriter}.
+ * <p>
+ * The file is memory-mapped, so opening it takes no time regardless of its size, and requests are looked up
+ * in O(1) through its hash index, keyed on their method, URL and body. Response bodies are streamed from the
+ * mapped region on demand, and never copied to the heap.
+ * <p>
+ * A cassette is the {@link Matcher} of the rule replaying it, answering the recorded responses:
+ * <pre>{@code
+ *  interceptor.addRule()
+ *      .anyTimes()
+ *      .replay(Cassette.open(new File("recorded.cassette")));
+ * }</pre>
+ *
+ * <h2>Format</h2>
+ * All the numbers are big-endian, and the strings are UTF-8 prefixed by their length as an {@code int}.
+ * <pre>
+ *  header:  int magic ("OKMC"), int version (1), long index offset, int index slots, int interactions
+ *  records: string method, string url, long request body hash, int code, string message,
+ *           int headers count, (string name, string value) per header, long body length, body bytes
+ *  index:   (long key hash, long record offset) per slot, an open-addressing table probed linearly,
+ *           with {@code 0} offsets for empty slots
+ * </pre>
+ */
+public final class Cassette implements Matcher {
+    static final int MAGIC = 0x4F4B4D43;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int SLOT_SIZE = 16;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String name;
+    private final ByteBuffer content;
+    private final long indexOffset;
+    private final int slots;
+    private final int size;
+
+    private Cassette(String name, ByteBuffer content) throws IOException {
+        this.name = name;
+        this.content = content;
+        if (content.limit() < HEADER_SIZE || content.getInt(0) != MAGIC) {
+            throw new IOException("Not a cassette: " + name);
+        }
+        if (content.getInt(4) != VERSION) {
+            throw new IOException("Unsupported cassette version " + content.getInt(4) + ": " + name);
+        }
+        this.indexOffset = content.getLong(8);
+        this.slots = content.getInt(16);
+        this.size = content.getInt(20);
+        if (Integer.bitCount(slots) != 1 || indexOffset + (long) slots * SLOT_SIZE > content.limit()) {
+            throw new IOException("Corrupted cassette: " + name);
+        }
+    }
+
+    /**
+     * Opens the given cassette file, by memory-mapping it
+     *
+     * @param file the file, up to 2GB
+     * @return the cassette
+     * @throws IOException if the file can't be read or it's not a cassette
+     */
+    public static Cassette open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long length = raf.length();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Cassettes can't be bigger than 2GB: " + file);
+            }
+            return new Cassette(file.toString(), raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length));
+        }
+    }
+
+    /**
+     * @return the number of recorded interactions
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean matches(Request request) {
+        return matches(RequestView.of(request));
+    }
+
+    @Override
+    public boolean matches(RequestView view) {
+        return lookup(view) != 0;
+    }
+
+    @Override
+    public String failReason(Request request) {
+        return failReason(RequestView.of(request));
+    }
+
+    @Override
+    public String failReason(RequestView view) {
+        return "no interaction recorded for " + view.method() + " " + view.url() + " in cassette " + name;
+    }
+
+    /**
+     * Replays the recorded response of a request, found by the lookup done while matching it with the same view
+     *
+     * @param request the request
+     * @param view    the view of the request
+     * @return the recorded response
+     */
+    Response.Builder respond(Request request, RequestView view) {
+        long record = lookup(view);
+        if (record == 0) {
+            throw new IllegalStateException(failReason(view));
+        }
+        return read(record);
+    }
+
+    /**
+     * @return the offset of the record of the given request, or {@code 0} if not recorded.
+     * It's cached on the view, so answering a matched request doesn't hash its body again
+     */
+    private long lookup(RequestView view) {
+        Object cached = view.cached(this);
+        if (cached != null) {
+            return (Long) cached;
+        }
+        long record = find(view);
+        view.cache(this, record);
+        return record;
+    }
+
+    private long find(RequestView view) {
+        String method = view.method().toUpperCase(Locale.US);
+        String url = view.url();
+        long bodyHash = view.request().body() != null ? bodyHash(view.body()) : 0;
+        long hash = hash(method, url, bodyHash);
+
+        ByteBuffer content = this.content.duplicate();
+        int mask = slots - 1;
+        for (int i = (int) (mix(hash) & mask), probes = 0; probes < slots; i = (i + 1) & mask, probes++) {
+            long slot = indexOffset + (long) i * SLOT_SIZE;
+            long record = content.getLong((int) slot + 8);
+            if (record == 0) {
+                return 0;
+            }
+            if (content.getLong((int) slot) == hash) {
+                content.position((int) record);
+                if (method.equals(readString(content)) && url.equals(readString(content)) && content.getLong() == bodyHash) {
+                    return record;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private Response.Builder read(long record) {
+        ByteBuffer content = this.content.duplicate();
+        content.position((int) record);
+        readString(content); // method
+        readString(content); // url
+        content.getLong(); // body hash
+        int code = content.getInt();
+        String message = readString(content);
+        int headersCount = content.getInt();
+        Headers.Builder headers = new Headers.Builder();
+        for (int i = 0; i < headersCount; i++) {
+            headers.add(readString(content), readString(content));
+        }
+        long bodyLength = content.getLong();
+        ByteBuffer body = content.slice();
+        body.limit((int) bodyLength);
+
+        Headers responseHeaders = headers.build();
+        String contentType = responseHeaders.get("Content-Type");
+        return new Response.Builder()
+            .protocol(Protocol.HTTP_1_1)
+            .code(code)
+            .message(message)
+            .headers(responseHeaders)
+            .body(ResponseBody.create(contentType != null ? MediaType.parse(contentType) : null, bodyLength,
+                Okio.buffer(new ByteBufferSource(body))));
+    }
+
+    private static String readString(ByteBuffer content) {
+        int length = content.getInt();
+        byte[] bytes = new byte[length];
+        content.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the index key of an interaction
+     */
+    static long hash(String method, String url, long bodyHash) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < method.length(); i++) {
+            hash = (hash ^ method.charAt(i)) * FNV_PRIME;
+        }
+        hash = (hash ^ ' ') * FNV_PRIME;
+        for (int i = 0; i < url.length(); i++) {
+            hash = (hash ^ url.charAt(i)) * FNV_PRIME;
+        }
+        for (int i = 0; i < 8; i++) {
+            hash = (hash ^ ((bodyHash >>> (i * 8)) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * @return the hash of a request body, as part of the index key of its interaction
+     */
+    static long bodyHash(ByteString body) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < body.size(); i++) {
+            hash = (hash ^ (body.getByte(i) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Spreads the higher bits of a hash into the lower ones, used to pick its first slot
+     */
+    static long mix(long hash) {
+        return hash ^ (hash >>> 32);
+    }
+
+    /**
+     * @return the cost of reading the body, as it's part of the key of the recorded interactions
+     */
+    @Override
+    public int cost() {
+        return COST_BODY;
+    }
+
+    @Override
+    public String toString() {
+        return "cassette(" + name + ")";
+    }
+
+}
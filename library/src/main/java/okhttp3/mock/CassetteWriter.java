@@ -0,0 +1,181 @@
+package okhttp3.mock;
+
+import okhttp3.Headers;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.Okio;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Writes a {@link Cassette} file, appending its interactions one by one.
+ * <p>
+ * Interactions are streamed to the file as they are written, and its index is written on {@link #close()}.
+ * If the same request (method, URL and body) is written more than once, the latest one is replayed.
+ * <p>
+ * It's not thread-safe.
+ */
+public final class CassetteWriter implements Closeable {
+    private final File file;
+    private final BufferedSink sink;
+    private long position = Cassette.HEADER_SIZE;
+    private long[] hashes = new long[64];
+    private long[] records = new long[64];
+    private byte[][] keys = new byte[64][];
+    private int count;
+    private boolean closed;
+
+    public CassetteWriter(File file) throws IOException {
+        this.file = file;
+        this.sink = Okio.buffer(Okio.sink(file));
+        sink.write(new byte[Cassette.HEADER_SIZE]);
+    }
+
+    /**
+     * Writes an interaction, reading the bodies of the given request and response
+     *
+     * @param request  the request
+     * @param response the response, whose body gets consumed
+     * @return this writer
+     * @throws IOException if the bodies can't be read or the cassette written
+     */
+    public CassetteWriter write(Request request, Response response) throws IOException {
+        RequestBody requestBody = request.body();
+        ByteString requestContent = null;
+        if (requestBody != null) {
+            Buffer buffer = new Buffer();
+            requestBody.writeTo(buffer);
+            requestContent = buffer.readByteString();
+        }
+        ResponseBody responseBody = response.body();
+        ByteString responseContent = responseBody != null ? responseBody.byteString() : ByteString.EMPTY;
+
+        return write(request.method(), request.url().toString(), requestContent,
+            response.code(), response.message(), response.headers(), responseContent);
+    }
+
+    /**
+     * Writes an interaction
+     *
+     * @param method      the method of the request
+     * @param url         the URL of the request
+     * @param requestBody the body of the request, {@code null} if none
+     * @param code        the code of the response
+     * @param message     the message of the response
+     * @param headers     the headers of the response
+     * @param body        the body of the response
+     * @return this writer
+     * @throws IOException if the cassette can't be written
+     */
+    public CassetteWriter write(String method, String url, ByteString requestBody, int code, String message, Headers headers, ByteString body) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("closed");
+        }
+        method = method.toUpperCase(Locale.US);
+        long bodyHash = requestBody != null ? Cassette.bodyHash(requestBody) : 0;
+
+        Buffer record = new Buffer();
+        writeString(record, method);
+        writeString(record, url);
+        record.writeLong(bodyHash);
+        byte[] key = record.snapshot().toByteArray();
+        record.writeInt(code);
+        writeString(record, message);
+        record.writeInt(headers.size());
+        for (int i = 0; i < headers.size(); i++) {
+            writeString(record, headers.name(i));
+            writeString(record, headers.value(i));
+        }
+        record.writeLong(body.size());
+        long recordSize = record.size() + body.size();
+        if (position + recordSize > Integer.MAX_VALUE) {
+            throw new IOException("Cassettes can't be bigger than 2GB: " + file);
+        }
+
+        if (count == hashes.length) {
+            hashes = Arrays.copyOf(hashes, count * 2);
+            records = Arrays.copyOf(records, count * 2);
+            keys = Arrays.copyOf(keys, count * 2);
+        }
+        hashes[count] = Cassette.hash(method, url, bodyHash);
+        records[count] = position;
+        keys[count] = key;
+        count++;
+
+        sink.writeAll(record);
+        sink.write(body);
+        position += recordSize;
+        return this;
+    }
+
+    private static void writeString(Buffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.writeInt(bytes.length);
+        buffer.write(bytes);
+    }
+
+    /**
+     * Writes the index of the cassette and closes its file
+     *
+     * @throws IOException if the cassette can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        // at most half full, so probes stay short
+        int slots = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+        long[] table = new long[slots * 2];
+        int[] owners = new int[slots];
+        int mask = slots - 1;
+        for (int n = 0; n < count; n++) {
+            for (int i = (int) (Cassette.mix(hashes[n]) & mask); ; i = (i + 1) & mask) {
+                if (table[i * 2 + 1] == 0) {
+                    table[i * 2] = hashes[n];
+                    table[i * 2 + 1] = records[n];
+                    owners[i] = n;
+                    break;
+                }
+                if (table[i * 2] == hashes[n] && Arrays.equals(keys[owners[i]], keys[n])) {
+                    table[i * 2 + 1] = records[n]; // the latest wins
+                    owners[i] = n;
+                    break;
+                }
+            }
+        }
+        keys = null;
+
+        long indexOffset = position;
+        try {
+            for (long value : table) {
+                sink.writeLong(value);
+            }
+
+        } finally {
+            sink.close();
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeInt(Cassette.MAGIC);
+            raf.writeInt(Cassette.VERSION);
+            raf.writeLong(indexOffset);
+            raf.writeInt(slots);
+            raf.writeInt(count);
+        }
+    }
+
+}
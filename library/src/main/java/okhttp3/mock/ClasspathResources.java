@@ -1,5 +1,8 @@
 package okhttp3.mock;
 
+import okio.Okio;
+
+import java.io.FileNotFoundException;
 import java.io.InputStream;
 
 /**
@@ -28,6 +31,33 @@ public final class ClasspathResources {
         return classLoader.getResourceAsStream(name);
     }
 
+    /**
+     * Streams the content from the given classpath resource, opening it again on every hit of a {@link Rule}
+     *
+     * @param name the name of the resource
+     * @return the content as a {@link BodySource}
+     */
+    public static BodySource source(String name) {
+        return source(Thread.currentThread().getContextClassLoader(), name);
+    }
+
+    /**
+     * Streams the content from the given classpath resource, opening it again on every hit of a {@link Rule}
+     *
+     * @param classLoader the base classloader
+     * @param name        the name of the resource
+     * @return the content as a {@link BodySource}
+     */
+    public static BodySource source(ClassLoader classLoader, String name) {
+        return () -> {
+            InputStream resource = resource(classLoader, name);
+            if (resource == null) {
+                throw new FileNotFoundException(name);
+            }
+            return Okio.source(resource);
+        };
+    }
+
     private ClasspathResources() {
     }
 
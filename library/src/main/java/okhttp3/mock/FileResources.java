@@ -0,0 +1,85 @@
+package okhttp3.mock;
+
+import okio.Okio;
+import okio.Source;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A helper class to provide responses from files, streamed from disk on every hit of a {@link Rule}
+ */
+public final class FileResources {
+
+    /**
+     * Streams the content from the given file
+     *
+     * @param file the file
+     * @return the content as a {@link BodySource}
+     */
+    public static BodySource file(File file) {
+        return new BodySource() {
+
+            @Override
+            public Source open() throws IOException {
+                return Okio.source(file);
+            }
+
+            @Override
+            public long contentLength() {
+                return file.length();
+            }
+
+        };
+    }
+
+    /**
+     * Streams the content from the given file, memory-mapping it once so all the hits share the same mapped region.
+     * <p>
+     * Files bigger than 2GB can't be mapped, use {@link #file(File)} instead.
+     *
+     * @param file the file
+     * @return the content as a {@link BodySource}
+     */
+    public static BodySource mapped(File file) {
+        return new MappedSource(file);
+    }
+
+    private static final class MappedSource implements BodySource {
+        private final File file;
+        private volatile MappedByteBuffer mapped;
+
+        MappedSource(File file) {
+            this.file = file;
+        }
+
+        private ByteBuffer map() throws IOException {
+            MappedByteBuffer mapped = this.mapped;
+            if (mapped == null) {
+                try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                    this.mapped = mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+                }
+            }
+            return mapped.duplicate();
+        }
+
+        @Override
+        public Source open() throws IOException {
+            return new ByteBufferSource(map());
+        }
+
+        @Override
+        public long contentLength() {
+            return file.length();
+        }
+
+    }
+
+    private FileResources() {
+    }
+
+}
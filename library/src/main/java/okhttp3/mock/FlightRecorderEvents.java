@@ -0,0 +1,49 @@
+package okhttp3.mock;
+
+/**
+ * Emission of Java Flight Recorder events for the requests intercepted by a {@link MockInterceptor}.
+ * <p>
+ * Events are only available on Java 11 or later: their classes are shipped as a multi-release JAR and loaded
+ * reflectively, so Java 8 and Android consumers are unaffected. Emission is disabled until the listener is added:
+ * <pre>{@code
+ *  interceptor.addListener(FlightRecorderEvents.listener());
+ * }</pre>
+ * An {@code okhttp3.mock.Intercept} event is then committed for every intercepted request while a recording is running.
+ */
+public final class FlightRecorderEvents {
+    private static final String LISTENER_CLASS = "okhttp3.mock.FlightRecorderListener";
+    private static final InterceptorListener NO_OP = new InterceptorListener() {
+    };
+
+    /**
+     * @return {@code true} if the running JVM supports the events
+     */
+    public static boolean isAvailable() {
+        return Holder.LISTENER != null;
+    }
+
+    /**
+     * @return the listener emitting the events, or a no-op one if the running JVM does not support them
+     */
+    public static InterceptorListener listener() {
+        return Holder.LISTENER != null ? Holder.LISTENER : NO_OP;
+    }
+
+    private static InterceptorListener load() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (InterceptorListener) Class.forName(LISTENER_CLASS).getDeclaredConstructor().newInstance();
+
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static final class Holder {
+        private static final InterceptorListener LISTENER = load();
+    }
+
+    private FlightRecorderEvents() {
+    }
+
+}
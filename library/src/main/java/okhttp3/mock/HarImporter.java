@@ -0,0 +1,297 @@
+package okhttp3.mock;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mock.json.JsonReader;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Okio;
+import okio.Source;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Imports the entries of <a href="http://www.softwareishard.com/blog/har-12-spec/">HAR</a> captures
+ * (as exported by browsers and proxies) as {@link Rule}s of a {@link MockInterceptor}.
+ * <p>
+ * Every entry becomes the equivalent of {@code addRule().method(method).url(url).respond(status, body)}.
+ * Entries sharing the same method and URL are merged into a single rule, answering their responses in capture order.
+ * <p>
+ * The capture is streamed, so only the location of every response body is kept in memory:
+ * bodies are read back from the file and decoded on the first hit of their rule, and kept in memory after that.
+ */
+public final class HarImporter {
+    private static final String[] DROPPED_HEADERS = {"Content-Encoding", "Content-Length", "Transfer-Encoding"};
+
+    /**
+     * Adds a rule for every distinct method and URL captured in the given HAR file.
+     * <p>
+     * Entries without a response (status {@code 0}) are skipped.
+     * As the captured bodies are already decoded, their {@code Content-Encoding} and {@code Content-Length}
+     * headers are dropped.
+     *
+     * @param interceptor the interceptor to add the rules to
+     * @param har         the HAR file
+     * @return the number of rules added
+     * @throws IOException if the file can't be read or it's not a valid HAR capture
+     */
+    public static int load(MockInterceptor interceptor, File har) throws IOException {
+        Map<String, List<Entry>> entries = new LinkedHashMap<>();
+        try (JsonReader reader = new JsonReader(Okio.buffer(Okio.source(har)))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"log".equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (!"entries".equals(reader.nextName())) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        Entry entry = readEntry(reader, har);
+                        if (entry.code > 0) {
+                            String key = entry.method + ' ' + entry.url;
+                            List<Entry> sequence = entries.get(key);
+                            if (sequence == null) {
+                                entries.put(key, sequence = new ArrayList<>(1));
+                            }
+                            sequence.add(entry);
+                        }
+                    }
+                    reader.endArray();
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+        }
+
+        for (List<Entry> sequence : entries.values()) {
+            Entry first = sequence.get(0);
+            interceptor.addRule()
+                .method(first.method)
+                .url(first.url)
+                .times(sequence.size())
+                .answer(sequence.size() == 1 ? first : new SequenceAnswer(sequence));
+        }
+        return entries.size();
+    }
+
+    private static Entry readEntry(JsonReader reader, File har) throws IOException {
+        Entry entry = new Entry(har);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "request":
+                    readRequest(reader, entry);
+                    break;
+                case "response":
+                    readResponse(reader, entry);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (entry.method == null || entry.url == null) {
+            throw new IOException("Entry without method or URL before byte " + reader.position());
+        }
+        // as the rule's URL matcher compares it with the canonical form of the request's one
+        HttpUrl url = HttpUrl.parse(entry.url);
+        if (url == null) {
+            throw new IOException("Entry with an invalid URL before byte " + reader.position() + ": " + entry.url);
+        }
+        entry.url = url.toString();
+        return entry;
+    }
+
+    private static void readRequest(JsonReader reader, Entry entry) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "method":
+                    entry.method = reader.nextString();
+                    break;
+                case "url":
+                    entry.url = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static void readResponse(JsonReader reader, Entry entry) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "status":
+                    entry.code = reader.nextInt();
+                    break;
+                case "statusText":
+                    entry.message = reader.nextString();
+                    break;
+                case "headers":
+                    entry.headers = readHeaders(reader);
+                    break;
+                case "content":
+                    readContent(reader, entry);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static Headers readHeaders(JsonReader reader) throws IOException {
+        Headers.Builder headers = new Headers.Builder();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String name = null;
+            String value = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name":
+                        name = reader.nextString();
+                        break;
+                    case "value":
+                        value = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (name != null && value != null && !name.startsWith(":") && !isDropped(name)) {
+                headers.addUnsafeNonAscii(name, value);
+            }
+        }
+        reader.endArray();
+        return headers.build();
+    }
+
+    private static void readContent(JsonReader reader, Entry entry) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "mimeType":
+                    entry.mediaType = MediaType.parse(reader.nextString());
+                    break;
+                case "encoding":
+                    entry.base64 = "base64".equals(reader.nextString());
+                    break;
+                case "text":
+                    if (reader.peek() == JsonReader.Token.STRING) {
+                        entry.textOffset = reader.position();
+                    }
+                    reader.skipValue();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static boolean isDropped(String header) {
+        for (String dropped : DROPPED_HEADERS) {
+            if (dropped.equalsIgnoreCase(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Entry implements Rule.PreparedAnswer, BodySource {
+        private final Lock lock = new ReentrantLock();
+        private final File har;
+        private Headers headers = Headers.of();
+        private String method;
+        private String url;
+        private int code;
+        private String message = "";
+        private MediaType mediaType;
+        private long textOffset = -1;
+        private boolean base64;
+        private volatile ByteString content;
+
+        Entry(File har) {
+            this.har = har;
+        }
+
+        @Override
+        public Response.Builder respond(Request request) {
+            ByteString content = textOffset < 0 ? ByteString.EMPTY : this.content;
+            return new Response.Builder()
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message(message)
+                .headers(headers)
+                .body(content != null ?
+                    RepeatableBody.of(content, mediaType) :
+                    RepeatableBody.of(this, mediaType));
+        }
+
+        /**
+         * Decodes the body of the entry on the first read of any of its responses, serving it from memory after that
+         */
+        @Override
+        public Source open() throws IOException {
+            return new ByteBufferSource(load().asByteBuffer());
+        }
+
+        private ByteString load() throws IOException {
+            ByteString content = this.content;
+            if (content == null) {
+                lock.lock();
+                try {
+                    content = this.content;
+                    if (content == null) {
+                        this.content = content = decode();
+                    }
+
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return content;
+        }
+
+        private ByteString decode() throws IOException {
+            FileInputStream input = new FileInputStream(har);
+            String text;
+            try (BufferedSource source = Okio.buffer(Okio.source(input))) {
+                input.getChannel().position(textOffset);
+                text = new JsonReader(source).nextString();
+            }
+            ByteString content = base64 ? ByteString.decodeBase64(text) : ByteString.encodeUtf8(text);
+            if (content == null) {
+                throw new IOException("Invalid base64 content for " + method + ' ' + url);
+            }
+            return content;
+        }
+
+    }
+
+    private HarImporter() {
+    }
+
+}
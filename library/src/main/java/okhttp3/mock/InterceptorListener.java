@@ -0,0 +1,64 @@
+package okhttp3.mock;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.util.Collection;
+
+/**
+ * Receives the outcome of every request intercepted by a {@link MockInterceptor}.
+ * <p>
+ * Listeners are called synchronously by the thread performing the request, possibly many at once,
+ * so they must be thread-safe, fast and never throw.
+ *
+ * @see MockInterceptor#addListener(InterceptorListener)
+ * @see InterceptorMetrics
+ */
+public interface InterceptorListener {
+
+    /**
+     * Called when a request was answered by a rule
+     *
+     * @param request      the request
+     * @param rule         the rule which matched the request
+     * @param response     the response of the rule
+     * @param behavior     the behavior of the interceptor
+     * @param scannedRules the number of rules evaluated to find the matching one
+     * @param matchNanos   the time spent evaluating the rules, in nanoseconds
+     * @param answerNanos  the time spent building the response, in nanoseconds, excluding the rule's delay
+     */
+    default void onMatched(Request request, Rule rule, Response response, Behavior behavior, int scannedRules, long matchNanos, long answerNanos) {
+    }
+
+    /**
+     * Called when a request was not matched by any rule and was performed by the rest of the chain instead
+     * ({@link Behavior#RELAYED})
+     *
+     * @param request      the request
+     * @param scannedRules the number of rules evaluated
+     * @param matchNanos   the time spent evaluating the rules, in nanoseconds
+     */
+    default void onRelayed(Request request, int scannedRules, long matchNanos) {
+    }
+
+    /**
+     * Called when a request was not matched by any rule and is about to fail
+     *
+     * @param request      the request
+     * @param behavior     the behavior of the interceptor
+     * @param scannedRules the number of rules evaluated
+     * @param matchNanos   the time spent evaluating the rules, in nanoseconds
+     */
+    default void onUnmatched(Request request, Behavior behavior, int scannedRules, long matchNanos) {
+    }
+
+    /**
+     * Called when rules were unregistered from the interceptor, by {@link MockInterceptor#replaceRules(Collection)}
+     * or {@link MockInterceptor#reset()}, so any state kept for them can be released
+     *
+     * @param rules the unregistered rules
+     */
+    default void onRulesRemoved(Collection<Rule> rules) {
+    }
+
+}
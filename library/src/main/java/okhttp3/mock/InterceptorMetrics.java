@@ -0,0 +1,291 @@
+package okhttp3.mock;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link InterceptorListener} counting the hits of every {@link Rule}, the unmatched and relayed requests,
+ * and the latencies of matching and answering them.
+ * <p>
+ * Counters are striped ({@link LongAdder}), so they can be updated by many threads at once without contention.
+ * Use {@link #snapshot()} to read them at any time. The hits of a rule are forgotten once it's unregistered from
+ * the interceptor.
+ * <p>
+ * Example:
+ * <pre>{@code
+ *  InterceptorMetrics metrics = new InterceptorMetrics();
+ *  interceptor.addListener(metrics);
+ *  ...
+ *  long hits = metrics.snapshot().getHits(rule);
+ * }</pre>
+ */
+public final class InterceptorMetrics implements InterceptorListener {
+    private final Map<Rule, LongAdder> hits = new ConcurrentHashMap<>();
+    private final LongAdder unmatched = new LongAdder();
+    private final LongAdder relayed = new LongAdder();
+    private final LatencyRecorder matchLatency = new LatencyRecorder();
+    private final LatencyRecorder answerLatency = new LatencyRecorder();
+
+    @Override
+    public void onMatched(Request request, Rule rule, Response response, Behavior behavior, int scannedRules, long matchNanos, long answerNanos) {
+        LongAdder counter = hits.get(rule);
+        if (counter == null) {
+            counter = hits.computeIfAbsent(rule, it -> new LongAdder());
+        }
+        counter.increment();
+        matchLatency.record(matchNanos);
+        answerLatency.record(answerNanos);
+    }
+
+    @Override
+    public void onRelayed(Request request, int scannedRules, long matchNanos) {
+        relayed.increment();
+        matchLatency.record(matchNanos);
+    }
+
+    @Override
+    public void onUnmatched(Request request, Behavior behavior, int scannedRules, long matchNanos) {
+        unmatched.increment();
+        matchLatency.record(matchNanos);
+    }
+
+    @Override
+    public void onRulesRemoved(Collection<Rule> rules) {
+        for (Rule rule : rules) {
+            hits.remove(rule);
+        }
+    }
+
+    /**
+     * @return a copy of the current values of the metrics
+     */
+    public Snapshot snapshot() {
+        Map<Rule, Long> hits = new HashMap<>();
+        for (Map.Entry<Rule, LongAdder> e : this.hits.entrySet()) {
+            hits.put(e.getKey(), e.getValue().sum());
+        }
+        return new Snapshot(Collections.unmodifiableMap(hits), unmatched.sum(), relayed.sum(),
+            matchLatency.snapshot(), answerLatency.snapshot());
+    }
+
+    /**
+     * Resets all the metrics to zero
+     */
+    public void reset() {
+        hits.clear();
+        unmatched.reset();
+        relayed.reset();
+        matchLatency.reset();
+        answerLatency.reset();
+    }
+
+    /**
+     * The values of the metrics at a given moment
+     */
+    public static final class Snapshot {
+        private final Map<Rule, Long> hits;
+        private final long unmatched;
+        private final long relayed;
+        private final Histogram matchLatency;
+        private final Histogram answerLatency;
+
+        Snapshot(Map<Rule, Long> hits, long unmatched, long relayed, Histogram matchLatency, Histogram answerLatency) {
+            this.hits = hits;
+            this.unmatched = unmatched;
+            this.relayed = relayed;
+            this.matchLatency = matchLatency;
+            this.answerLatency = answerLatency;
+        }
+
+        /**
+         * @return the number of requests answered by every rule which was hit at least once
+         */
+        public Map<Rule, Long> getHits() {
+            return hits;
+        }
+
+        /**
+         * @param rule the rule
+         * @return the number of requests answered by the given rule
+         */
+        public long getHits(Rule rule) {
+            Long count = hits.get(rule);
+            return count != null ? count : 0;
+        }
+
+        /**
+         * @return the number of requests answered by any rule
+         */
+        public long getMatched() {
+            long matched = 0;
+            for (long count : hits.values()) {
+                matched += count;
+            }
+            return matched;
+        }
+
+        /**
+         * @return the number of requests not matched by any rule, failing the call
+         */
+        public long getUnmatched() {
+            return unmatched;
+        }
+
+        /**
+         * @return the number of requests not matched by any rule, performed by the rest of the chain
+         */
+        public long getRelayed() {
+            return relayed;
+        }
+
+        /**
+         * @return the latencies of evaluating the rules of every request
+         */
+        public Histogram getMatchLatency() {
+            return matchLatency;
+        }
+
+        /**
+         * @return the latencies of building the response of every matched request, excluding the rules' delays
+         */
+        public Histogram getAnswerLatency() {
+            return answerLatency;
+        }
+
+        @Override
+        public String toString() {
+            return "matched=" + getMatched() +
+                ", unmatched=" + unmatched +
+                ", relayed=" + relayed +
+                ", matchLatency=" + matchLatency +
+                ", answerLatency=" + answerLatency;
+        }
+
+    }
+
+    /**
+     * A latency distribution, in nanoseconds, bucketed by powers of 2
+     */
+    public static final class Histogram {
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Histogram(long[] buckets, long count, long sum, long max) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @return the number of recorded values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the mean of the recorded values, or {@code 0} if none
+         */
+        public long getMean() {
+            return count > 0 ? sum / count : 0;
+        }
+
+        /**
+         * @return the max of the recorded values, or {@code 0} if none
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @param percentile the percentile, from {@code 0} to {@code 100}
+         * @return the upper bound of the bucket holding the given percentile, never greater than {@link #getMax()}
+         */
+        public long getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100!");
+            }
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(LatencyRecorder.upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "{count=" + count +
+                ", mean=" + getMean() +
+                "ns, p50=" + getPercentile(50) +
+                "ns, p99=" + getPercentile(99) +
+                "ns, max=" + max + "ns}";
+        }
+
+    }
+
+    private static final class LatencyRecorder {
+        private final LongAdder[] buckets = new LongAdder[Long.SIZE];
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        LatencyRecorder() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * @return the bucket of the given value: {@code 0} for {@code 0}, {@code i} for {@code [2^(i-1), 2^i)}
+         */
+        static int bucket(long nanos) {
+            return Math.min(Long.SIZE - Long.numberOfLeadingZeros(nanos), Long.SIZE - 1);
+        }
+
+        static long upperBound(int bucket) {
+            return bucket >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+        }
+
+        void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            buckets[bucket(nanos)].increment();
+            sum.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        Histogram snapshot() {
+            long[] counts = new long[buckets.length];
+            long count = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                count += counts[i] = buckets[i].sum();
+            }
+            return new Histogram(counts, count, sum.sum(), max.get());
+        }
+
+        void reset() {
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+            sum.reset();
+            max.reset();
+        }
+
+    }
+
+}
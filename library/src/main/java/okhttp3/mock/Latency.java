@@ -0,0 +1,127 @@
+package okhttp3.mock;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulated network latency for {@link Rule}s.
+ * <p>
+ * Waits park the calling thread (never {@code synchronized}, so virtual threads are unmounted while waiting)
+ * and wake up periodically to honor {@link Call#cancel()} and thread interruption.
+ * A read timeout shorter than the delay fails the wait with a {@link SocketTimeoutException}, as a real server would.
+ */
+final class Latency {
+    private static final long CANCEL_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Waits for the given delay
+     *
+     * @param call              the call being delayed, if any
+     * @param delayMillis       the delay
+     * @param readTimeoutMillis the read timeout of the call, {@code 0} for none
+     * @throws IOException if the call is canceled, the thread interrupted or the read timeout reached
+     */
+    static void await(Call call, long delayMillis, int readTimeoutMillis) throws IOException {
+        awaitUntil(call, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis), readTimeoutMillis);
+    }
+
+    private static void awaitUntil(Call call, long deadlineNanos, int readTimeoutMillis) throws IOException {
+        long end = deadlineNanos;
+        boolean timesOut = false;
+        if (readTimeoutMillis > 0) {
+            long timeoutNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readTimeoutMillis);
+            if (timeoutNanos - deadlineNanos < 0) {
+                end = timeoutNanos;
+                timesOut = true;
+            }
+        }
+        for (long remaining; (remaining = end - System.nanoTime()) > 0; ) {
+            LockSupport.parkNanos(Latency.class, Math.min(remaining, CANCEL_CHECK_NANOS));
+
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while delaying the response");
+            }
+            if (call != null && call.isCanceled()) {
+                throw new IOException("Canceled");
+            }
+        }
+        if (timesOut) {
+            throw new SocketTimeoutException("timeout");
+        }
+    }
+
+    /**
+     * Wraps the given body so its first byte is held back for the given delay, counting from now
+     *
+     * @param body              the body to delay
+     * @param call              the call being delayed, if any
+     * @param delayMillis       the delay
+     * @param readTimeoutMillis the read timeout of the call, {@code 0} for none
+     * @return the delayed body
+     */
+    static ResponseBody delayBody(ResponseBody body, Call call, long delayMillis, int readTimeoutMillis) {
+        return new DelayedBody(body, call, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis), readTimeoutMillis);
+    }
+
+    private static final class DelayedBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final Call call;
+        private final long deadlineNanos;
+        private final int readTimeoutMillis;
+        private BufferedSource source;
+
+        DelayedBody(ResponseBody delegate, Call call, long deadlineNanos, int readTimeoutMillis) {
+            this.delegate = delegate;
+            this.call = call;
+            this.deadlineNanos = deadlineNanos;
+            this.readTimeoutMillis = readTimeoutMillis;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                    private boolean waited;
+
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        if (!waited) {
+                            awaitUntil(call, deadlineNanos, readTimeoutMillis);
+                            waited = true;
+                        }
+                        return super.read(sink, byteCount);
+                    }
+
+                });
+            }
+            return source;
+        }
+
+    }
+
+    private Latency() {
+    }
+
+}
@@ -0,0 +1,146 @@
+package okhttp3.mock;
+
+import okhttp3.Request;
+import okhttp3.mock.matchers.Matcher;
+import okhttp3.mock.matchers.RequestView;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link AssertionError} thrown by {@link MockInterceptor} when a request is not matched.
+ * <p>
+ * Its message is only built when asked for, reusing the results of the matching pass,
+ * so negative-path tests which just expect the failure don't pay for it.
+ */
+final class MatchFailure extends AssertionError {
+    private static final long serialVersionUID = 1L;
+    private static final String TRUNCATED = "...(%d more chars)";
+
+    private final transient Report report;
+    private volatile String message;
+
+    private MatchFailure(Report report) {
+        this.report = report;
+    }
+
+    /**
+     * @param rule      the next rule, which did not match
+     * @param mismatch  the first matcher of the rule which did not match
+     * @param view      the request, already read by the matchers, and no longer used by the interceptor
+     * @param maxLength the max length of every reported value
+     * @return the failure for a request not matching the next rule
+     */
+    static MatchFailure notMatchedNext(Rule rule, Matcher mismatch, RequestView view, int maxLength) {
+        String ruleText = rule.toString();
+        Request request = view.request();
+        return new MatchFailure(() -> {
+            StringBuilder sb = new StringBuilder("Not matched next rule: ");
+            sb.append(truncate(ruleText, maxLength));
+            sb.append(", request=");
+            sb.append(truncate(request.toString(), maxLength));
+            sb.append("\nFailed to match:");
+            int i = 0;
+            for (Map.Entry<Matcher, String> e : rule.getFailReason(view, mismatch).entrySet()) {
+                sb.append("\n\t");
+                sb.append(++i);
+                sb.append(": ");
+                sb.append(truncate(e.getValue(), maxLength));
+                sb.append("; matcher=");
+                sb.append(truncate(e.getKey().toString(), maxLength));
+            }
+            return sb.toString();
+        });
+    }
+
+    /**
+     * @param view      the request
+     * @param rules     the rules of the interceptor, only the not consumed ones are listed
+     * @param maxRules  the max number of reported rules
+     * @param maxLength the max length of every reported value
+     * @return the failure for a request not matching any rule
+     */
+    static MatchFailure notMatchedAny(RequestView view, RuleIndex rules, int maxRules, int maxLength) {
+        // the state of the rules is taken now, as they may be consumed by other calls before the message is built
+        int size = rules.size();
+        List<Rule> remaining = new ArrayList<>(Math.min(size, maxRules));
+        int remainingCount = 0;
+        for (int i = 0; i < size; i++) {
+            Rule rule = rules.get(i);
+            if (!rule.isConsumed()) {
+                if (remainingCount++ < maxRules) {
+                    remaining.add(rule);
+                }
+            }
+        }
+        int consumed = size - remainingCount;
+        int hidden = remainingCount - remaining.size();
+        Request request = view.request();
+        return new MatchFailure(() -> {
+            StringBuilder sb = new StringBuilder("Not matched any rule: request=");
+            sb.append(truncate(request.toString(), maxLength));
+            if (remaining.isEmpty() && hidden == 0) {
+                sb.append("\nNo remaining rules!");
+
+            } else {
+                sb.append("\nRemaining rules:");
+                for (int i = 0; i < remaining.size(); i++) {
+                    sb.append("\n\t");
+                    sb.append(i + 1);
+                    sb.append(": ");
+                    sb.append(truncate(remaining.get(i).toString(), maxLength));
+                }
+                if (hidden > 0) {
+                    sb.append("\n\t...(");
+                    sb.append(hidden);
+                    sb.append(" more rules)");
+                }
+            }
+            if (consumed > 0) {
+                sb.append("\nConsumed rules: ");
+                sb.append(consumed);
+            }
+            return sb.toString();
+        });
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength) + String.format(TRUNCATED, value.length() - maxLength);
+    }
+
+    @Override
+    public String getMessage() {
+        String message = this.message;
+        if (message == null && report != null) {
+            // the view of a report is not thread-safe, so it's built only once
+            synchronized (this) {
+                message = this.message;
+                if (message == null) {
+                    this.message = message = report.build();
+                }
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Builds the message before serializing this error, as its report is not serializable
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getMessage();
+        out.defaultWriteObject();
+    }
+
+    private interface Report {
+
+        String build();
+
+    }
+
+}
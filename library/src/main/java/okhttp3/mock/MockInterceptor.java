@@ -4,19 +4,38 @@ import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.mock.matchers.Matcher;
+import okhttp3.mock.matchers.RequestView;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * An {@link Interceptor} for {@link okhttp3.OkHttpClient}, which with match request and provide pre-configured mock responses.
+ * <p>
+ * It's safe to be shared by concurrent calls: requests are dispatched without locking,
+ * while {@link #addRule(Rule)}, {@link #addRules(Collection)}, {@link #replaceRules(Collection)} and {@link #reset()}
+ * are serialized between them.
+ * <p>
+ * Consumed rules are dropped from the dispatch of requests by an amortized compaction, once the calls iterating
+ * past them wasted as much time as compacting them costs. They are still listed by {@link #getRules()}.
  */
 public class MockInterceptor implements Interceptor {
-    private final List<Rule> rules = new LinkedList<>();
-    private Behavior behavior;
+    private final Lock writeLock = new ReentrantLock();
+    private volatile RuleIndex rules = new RuleIndex();
+    private volatile Behavior behavior;
+    private volatile int failureRulesLimit = 100;
+    private volatile int failureValueLimit = 4096;
+    private volatile InterceptorListener[] listeners = new InterceptorListener[0];
+    private volatile TrafficRecorder recorder;
 
     /**
      * Creates a MockInterceptor with a default {@link Behavior#SEQUENTIAL} behavior
@@ -30,7 +49,7 @@ public class MockInterceptor implements Interceptor {
     }
 
     public List<Rule> getRules() {
-        return Collections.unmodifiableList(rules);
+        return rules.rules();
     }
 
     /**
@@ -64,7 +83,32 @@ public class MockInterceptor implements Interceptor {
      * @return this instance
      */
     public MockInterceptor addRule(Rule rule) {
-        rules.add(rule);
+        writeLock.lock();
+        try {
+            rules.add(rule);
+
+        } finally {
+            writeLock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Adds the given mock rules to this interceptor, holding the lock that serializes the changes of its rules only once.
+     *
+     * @param rules the rules to add, in order
+     * @return this instance
+     */
+    public MockInterceptor addRules(Collection<Rule> rules) {
+        writeLock.lock();
+        try {
+            for (Rule rule : rules) {
+                this.rules.add(rule);
+            }
+
+        } finally {
+            writeLock.unlock();
+        }
         return this;
     }
 
@@ -84,11 +128,68 @@ public class MockInterceptor implements Interceptor {
         };
     }
 
+    /**
+     * Replaces all the rules of this interceptor with the given ones, as a single atomic change:
+     * concurrent calls are dispatched either against the previous rules or the new ones, never a mix of both.
+     *
+     * @param rules the new rules
+     * @return this instance
+     */
+    public MockInterceptor replaceRules(Collection<Rule> rules) {
+        RuleIndex index = new RuleIndex();
+        for (Rule rule : rules) {
+            index.add(rule);
+        }
+        RuleIndex previous;
+        writeLock.lock();
+        try {
+            previous = this.rules;
+            this.rules = index;
+
+        } finally {
+            writeLock.unlock();
+        }
+        notifyRemoved(previous, rules);
+        return this;
+    }
+
     public MockInterceptor reset() {
-        rules.clear();
+        RuleIndex previous;
+        writeLock.lock();
+        try {
+            previous = rules;
+            rules = new RuleIndex();
+
+        } finally {
+            writeLock.unlock();
+        }
+        notifyRemoved(previous, Collections.emptyList());
         return this;
     }
 
+    /**
+     * Notifies the listeners of the rules of the given index which are not part of the current ones
+     */
+    private void notifyRemoved(RuleIndex previous, Collection<Rule> current) {
+        InterceptorListener[] listeners = this.listeners;
+        if (listeners.length == 0) {
+            return;
+        }
+        List<Rule> removed = new ArrayList<>(previous.rules());
+        if (removed.isEmpty()) {
+            return;
+        }
+        if (!current.isEmpty()) {
+            Set<Rule> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+            kept.addAll(current);
+            removed.removeIf(kept::contains);
+        }
+        List<Rule> rules = Collections.unmodifiableList(removed);
+        for (InterceptorListener listener : listeners) {
+            listener.onRulesRemoved(rules);
+        }
+    }
+
     public Behavior behavior() {
         return behavior;
     }
@@ -98,59 +199,180 @@ public class MockInterceptor implements Interceptor {
         return this;
     }
 
+    /**
+     * Limits the number of rules listed by the {@link AssertionError} thrown when a request is not matched by any rule
+     *
+     * @param maxRules the max number of listed rules, {@code 100} by default
+     * @return this instance
+     */
+    public MockInterceptor failureRulesLimit(int maxRules) {
+        if (maxRules < 0) {
+            throw new IllegalArgumentException("Limit can't be less than 0!");
+        }
+        this.failureRulesLimit = maxRules;
+        return this;
+    }
+
+    /**
+     * Limits the length of every value (as a request body) reported by the {@link AssertionError} thrown
+     * when a request is not matched
+     *
+     * @param maxLength the max number of characters of every reported value, {@code 4096} by default
+     * @return this instance
+     */
+    public MockInterceptor failureValueLimit(int maxLength) {
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("Limit can't be less than 0!");
+        }
+        this.failureValueLimit = maxLength;
+        return this;
+    }
+
+    /**
+     * Records the requests relayed by this interceptor ({@link Behavior#RELAYED}) and their responses
+     *
+     * @param recorder the recorder, {@code null} to stop recording
+     * @return this instance
+     */
+    public MockInterceptor recorder(TrafficRecorder recorder) {
+        this.recorder = recorder;
+        return this;
+    }
+
+    /**
+     * Adds a listener to be notified of the outcome of every intercepted request
+     *
+     * @param listener the listener to add
+     * @return this instance
+     */
+    public MockInterceptor addListener(InterceptorListener listener) {
+        writeLock.lock();
+        try {
+            InterceptorListener[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+            listeners[listeners.length - 1] = listener;
+            this.listeners = listeners;
+
+        } finally {
+            writeLock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Removes a listener previously added with {@link #addListener(InterceptorListener)}
+     *
+     * @param listener the listener to remove
+     * @return this instance
+     */
+    public MockInterceptor removeListener(InterceptorListener listener) {
+        writeLock.lock();
+        try {
+            List<InterceptorListener> listeners = new ArrayList<>(Arrays.asList(this.listeners));
+            listeners.remove(listener);
+            this.listeners = listeners.toArray(new InterceptorListener[0]);
+
+        } finally {
+            writeLock.unlock();
+        }
+        return this;
+    }
+
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
+        RequestView view = RequestView.of(request);
+        RuleIndex rules = this.rules;
+        Behavior behavior = this.behavior;
+        InterceptorListener[] listeners = this.listeners;
+        long start = listeners.length > 0 ? System.nanoTime() : 0;
+        int scanned = 0;
+        int skipped = 0;
 
-        for (Rule rule : rules) {
+        Iterator<Rule> it = behavior == Behavior.SEQUENTIAL ? rules.all() : rules.candidates(view);
+        while (it.hasNext()) {
+            Rule rule = it.next();
             if (rule.isConsumed()) {
+                skipped++;
                 continue;
             }
 
-            Response response = rule.accept(request);
-            if (response != null) {
-                return response;
+            scanned++;
+            Matcher mismatch = rule.mismatch(view);
+            if (mismatch == null) {
+                if (rule.claim()) {
+                    compact(rules, skipped);
+                    return respond(chain, view, rule, behavior, listeners, scanned, start);
+                }
+                // consumed meanwhile by a concurrent call
 
             } else if (behavior == Behavior.SEQUENTIAL) {
-                StringBuilder sb = new StringBuilder("Not matched next rule: ");
-                sb.append(rule);
-                sb.append(", request=");
-                sb.append(request);
-                sb.append("\nFailed to match:");
-                int i = 0;
-                for (Map.Entry<Matcher, String> e : rule.getFailReason(request).entrySet()) {
-                    sb.append("\n\t");
-                    sb.append(++i);
-                    sb.append(": ");
-                    sb.append(e.getValue());
-                    sb.append("; matcher=");
-                    sb.append(e.getKey());
-                }
-                throw new AssertionError(sb.toString());
+                compact(rules, skipped);
+                notifyUnmatched(request, behavior, listeners, scanned, start);
+                throw MatchFailure.notMatchedNext(rule, mismatch, view, failureValueLimit);
             }
         }
 
         // no matched rules or no more rules
+        compact(rules, skipped);
         if (behavior == Behavior.RELAYED) {
-            return chain.proceed(request);
+            if (listeners.length > 0) {
+                long matchNanos = System.nanoTime() - start;
+                for (InterceptorListener listener : listeners) {
+                    listener.onRelayed(request, scanned, matchNanos);
+                }
+            }
+            Response response = chain.proceed(request);
+            TrafficRecorder recorder = this.recorder;
+            return recorder != null ? recorder.record(request, response) : response;
         }
+        notifyUnmatched(request, behavior, listeners, scanned, start);
+        throw MatchFailure.notMatchedAny(view, rules, failureRulesLimit, failureValueLimit);
+    }
 
-        StringBuilder sb = new StringBuilder("Not matched any rule: request=");
-        sb.append(request);
-        if (rules.isEmpty()) {
-            sb.append("\nNo remaining rules!");
+    /**
+     * Replaces the given rules with a compacted copy of them, once enough consumed rules were iterated past.
+     * <p>
+     * It never waits for the write lock: if another thread holds it, the compaction is left for a later call.
+     *
+     * @param rules   the rules the current call iterated
+     * @param skipped the number of consumed rules it iterated past
+     */
+    private void compact(RuleIndex rules, int skipped) {
+        if (skipped > 0 && rules.waste(skipped) && writeLock.tryLock()) {
+            try {
+                if (this.rules == rules) {
+                    this.rules = rules.compact();
+                }
 
-        } else {
-            sb.append("\nRemaining rules:");
-            int i = 0;
-            for (Rule rule : rules) {
-                sb.append("\n\t");
-                sb.append(++i);
-                sb.append(": ");
-                sb.append(rule);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private static Response respond(Chain chain, RequestView view, Rule rule, Behavior behavior, InterceptorListener[] listeners, int scanned, long start) throws IOException {
+        Request request = view.request();
+        if (listeners.length == 0) {
+            return rule.respond(view, chain.call(), chain.readTimeoutMillis());
+        }
+        long matchNanos = System.nanoTime() - start;
+        rule.await(chain.call(), chain.readTimeoutMillis());
+        long answerStart = System.nanoTime();
+        Response response = rule.answer(view, chain.call(), chain.readTimeoutMillis());
+        long answerNanos = System.nanoTime() - answerStart;
+        for (InterceptorListener listener : listeners) {
+            listener.onMatched(request, rule, response, behavior, scanned, matchNanos, answerNanos);
+        }
+        return response;
+    }
+
+    private static void notifyUnmatched(Request request, Behavior behavior, InterceptorListener[] listeners, int scanned, long start) {
+        if (listeners.length > 0) {
+            long matchNanos = System.nanoTime() - start;
+            for (InterceptorListener listener : listeners) {
+                listener.onUnmatched(request, behavior, scanned, matchNanos);
             }
         }
-        throw new AssertionError(sb.toString());
     }
 
 }
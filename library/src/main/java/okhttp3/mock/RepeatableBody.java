@@ -0,0 +1,227 @@
+package okhttp3.mock;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link ResponseBody} which can be served many times, by forking cheap independent views of it.
+ * <p>
+ * The content of a view is opened on its first read, so failures reading it are reported to the caller
+ * as {@link IOException}s, as a real network body would.
+ */
+abstract class RepeatableBody extends ResponseBody {
+    private final MediaType contentType;
+    private BufferedSource source;
+
+    RepeatableBody(MediaType contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * @param content     the content of the body
+     * @param contentType the type of the body
+     * @return a body backed by the given immutable content
+     */
+    static RepeatableBody of(ByteString content, MediaType contentType) {
+        return new BytesBody(content, contentType);
+    }
+
+    /**
+     * @param content     the content of the body
+     * @param contentType the type of the body
+     * @return a body streaming the given source again on every view
+     */
+    static RepeatableBody of(BodySource content, MediaType contentType) {
+        return new SourceBody(content, contentType);
+    }
+
+    /**
+     * @param body the body to read
+     * @return a body reading the given one on the first read of any of its views, and serving a copy of it after that
+     */
+    static RepeatableBody cached(ResponseBody body) {
+        return new CachedBody(new Cache(body), body.contentType());
+    }
+
+    /**
+     * @return a new view of this body, with its own read position
+     */
+    abstract RepeatableBody fork();
+
+    abstract Source openSource() throws IOException;
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public BufferedSource source() {
+        if (source == null) {
+            source = Okio.buffer(new LazySource());
+        }
+        return source;
+    }
+
+    private final class LazySource implements Source {
+        private Source delegate;
+        private boolean closed;
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            if (closed) {
+                throw new IllegalStateException("closed");
+            }
+            if (delegate == null) {
+                delegate = openSource();
+            }
+            return delegate.read(sink, byteCount);
+        }
+
+        @Override
+        public Timeout timeout() {
+            return delegate != null ? delegate.timeout() : Timeout.NONE;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            if (delegate != null) {
+                delegate.close();
+            }
+        }
+
+    }
+
+    private static final class BytesBody extends RepeatableBody {
+        private final ByteString content;
+
+        BytesBody(ByteString content, MediaType contentType) {
+            super(contentType);
+            this.content = content;
+        }
+
+        @Override
+        RepeatableBody fork() {
+            return new BytesBody(content, contentType());
+        }
+
+        @Override
+        Source openSource() {
+            return new ByteBufferSource(content.asByteBuffer());
+        }
+
+        @Override
+        public long contentLength() {
+            return content.size();
+        }
+
+    }
+
+    private static final class SourceBody extends RepeatableBody {
+        private final BodySource content;
+
+        SourceBody(BodySource content, MediaType contentType) {
+            super(contentType);
+            this.content = content;
+        }
+
+        @Override
+        RepeatableBody fork() {
+            return new SourceBody(content, contentType());
+        }
+
+        @Override
+        Source openSource() throws IOException {
+            return content.open();
+        }
+
+        @Override
+        public long contentLength() {
+            return content.contentLength();
+        }
+
+    }
+
+    private static final class CachedBody extends RepeatableBody {
+        private final Cache cache;
+
+        CachedBody(Cache cache, MediaType contentType) {
+            super(contentType);
+            this.cache = cache;
+        }
+
+        @Override
+        RepeatableBody fork() {
+            return new CachedBody(cache, contentType());
+        }
+
+        @Override
+        Source openSource() throws IOException {
+            return new ByteBufferSource(cache.load().asByteBuffer());
+        }
+
+        @Override
+        public long contentLength() {
+            return cache.contentLength();
+        }
+
+    }
+
+    /**
+     * The content of a body read once, shared by all the views of a {@link CachedBody}
+     */
+    private static final class Cache {
+        private final Lock lock = new ReentrantLock();
+        private ResponseBody origin;
+        private volatile ByteString content;
+
+        Cache(ResponseBody origin) {
+            this.origin = origin;
+        }
+
+        ByteString load() throws IOException {
+            ByteString content = this.content;
+            if (content == null) {
+                lock.lock();
+                try {
+                    content = this.content;
+                    if (content == null) {
+                        this.content = content = origin.byteString();
+                        origin = null;
+                    }
+
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return content;
+        }
+
+        long contentLength() {
+            ByteString content = this.content;
+            if (content != null) {
+                return content.size();
+            }
+            lock.lock();
+            try {
+                return this.content != null ? this.content.size() : origin.contentLength();
+
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,324 @@
+package okhttp3.mock;
+
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mock.matchers.Matcher;
+import okhttp3.mock.matchers.RequestView;
+import okio.Buffer;
+import okio.ByteString;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded journal of the requests received by a {@link MockInterceptor}, to verify the traffic of a test.
+ * <p>
+ * It keeps the latest {@code capacity} requests in a preallocated ring buffer, each one with the rule that matched it,
+ * its timestamp and its response code. Recording a request takes no locks and allocates nothing
+ * (unless bodies are captured), so it can stay enabled while many threads are performing requests.
+ * <p>
+ * Example:
+ * <pre>{@code
+ *  RequestJournal journal = new RequestJournal(1024);
+ *  interceptor.addListener(journal);
+ *  ...
+ *  assertEquals(2, journal.count(new PathMatcher(exact("/login"))));
+ * }</pre>
+ */
+public final class RequestJournal implements InterceptorListener {
+    private static final int MAX_SPINS = 1024;
+    private final Slot[] slots;
+    private final int mask;
+    private final boolean captureBodies;
+    private final AtomicLong cursor = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long clearedAt;
+
+    /**
+     * Creates a journal not capturing request bodies
+     *
+     * @param capacity the max number of kept requests, rounded up to a power of 2
+     */
+    public RequestJournal(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * @param capacity      the max number of kept requests, rounded up to a power of 2
+     * @param captureBodies if the bodies of the requests should be kept too (which allocates a copy of them)
+     */
+    public RequestJournal(int capacity, boolean captureBodies) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30!");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.captureBodies = captureBodies;
+    }
+
+    @Override
+    public void onMatched(Request request, Rule rule, Response response, Behavior behavior, int scannedRules, long matchNanos, long answerNanos) {
+        record(request, rule, Outcome.MATCHED, response.code());
+    }
+
+    @Override
+    public void onRelayed(Request request, int scannedRules, long matchNanos) {
+        record(request, null, Outcome.RELAYED, -1);
+    }
+
+    @Override
+    public void onUnmatched(Request request, Behavior behavior, int scannedRules, long matchNanos) {
+        record(request, null, Outcome.UNMATCHED, -1);
+    }
+
+    private void record(Request request, Rule rule, Outcome outcome, int code) {
+        ByteString body = captureBodies ? readBody(request) : null;
+        long timestamp = System.currentTimeMillis();
+        long index = cursor.getAndIncrement();
+        Slot slot = slots[(int) (index & mask)];
+
+        // seqlock: an odd version while writing, the even one after it's done
+        long writing = index * 2 + 1;
+        for (int spins = 0; ; spins++) {
+            long version = slot.version;
+            if (version >= writing) {
+                return; // already overwritten by a newer request
+            }
+            if ((version & 1) == 0 && Slot.VERSION.compareAndSet(slot, version, writing)) {
+                break;
+            }
+            if (spins >= MAX_SPINS) {
+                dropped.increment(); // an older request is still being written to the slot: never block the call
+                return;
+            }
+            if (spins >= MAX_SPINS / 2) {
+                Thread.yield();
+            }
+        }
+        slot.request = request;
+        slot.rule = rule;
+        slot.outcome = outcome;
+        slot.code = code;
+        slot.timestamp = timestamp;
+        slot.body = body;
+        slot.version = writing + 1;
+    }
+
+    private static ByteString readBody(Request request) {
+        RequestBody body = request.body();
+        if (body == null || body.isOneShot() || body.isDuplex()) {
+            return null;
+        }
+        try {
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            return buffer.readByteString();
+
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of requests recorded since this journal was created or cleared, including the dropped ones
+     */
+    public long size() {
+        return cursor.get() - clearedAt;
+    }
+
+    /**
+     * @return the number of requests not kept since this journal was created or cleared, because the slot they were
+     * assigned to was still being written by an older one
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the kept requests, oldest first
+     */
+    public List<Entry> entries() {
+        long start = clearedAt;
+        long end = cursor.get();
+        start = Math.max(start, end - slots.length);
+        List<Entry> entries = new ArrayList<>((int) (end - start));
+        for (long index = start; index < end; index++) {
+            Entry entry = read(index);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @param matcher the matcher to check the requests against
+     * @return the kept requests matching the given matcher, oldest first
+     */
+    public List<Entry> find(Matcher matcher) {
+        List<Entry> entries = new ArrayList<>();
+        for (Entry entry : entries()) {
+            if (matcher.matches(RequestView.of(entry.request))) {
+                entries.add(entry);
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @param matcher the matcher to check the requests against
+     * @return the number of kept requests matching the given matcher
+     */
+    public int count(Matcher matcher) {
+        return find(matcher).size();
+    }
+
+    /**
+     * @param rule the rule
+     * @return the number of kept requests answered by the given rule
+     */
+    public int count(Rule rule) {
+        int count = 0;
+        for (Entry entry : entries()) {
+            if (entry.rule == rule) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Discards all the kept requests.
+     * <p>
+     * Requests being recorded while clearing may be kept or not.
+     */
+    public void clear() {
+        clearedAt = cursor.get();
+        dropped.reset();
+    }
+
+    private Entry read(long index) {
+        Slot slot = slots[(int) (index & mask)];
+        long version = slot.version;
+        if (version != index * 2 + 2) {
+            return null; // being written or already overwritten
+        }
+        Entry entry = new Entry(slot.request, slot.rule, slot.outcome, slot.code, slot.timestamp, slot.body);
+        return slot.version == version ? entry : null;
+    }
+
+    /**
+     * What happened to a request
+     */
+    public enum Outcome {
+
+        /**
+         * Answered by a rule
+         */
+        MATCHED,
+
+        /**
+         * Not matched by any rule, performed by the rest of the chain ({@link Behavior#RELAYED})
+         */
+        RELAYED,
+
+        /**
+         * Not matched by any rule, failed
+         */
+        UNMATCHED
+
+    }
+
+    /**
+     * A request kept by a {@link RequestJournal}
+     */
+    public static final class Entry {
+        private final Request request;
+        private final Rule rule;
+        private final Outcome outcome;
+        private final int code;
+        private final long timestamp;
+        private final ByteString body;
+
+        Entry(Request request, Rule rule, Outcome outcome, int code, long timestamp, ByteString body) {
+            this.request = request;
+            this.rule = rule;
+            this.outcome = outcome;
+            this.code = code;
+            this.timestamp = timestamp;
+            this.body = body;
+        }
+
+        public Request getRequest() {
+            return request;
+        }
+
+        /**
+         * @return the rule which answered the request, or {@code null} if none
+         */
+        public Rule getRule() {
+            return rule;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * @return the code of the response of the rule, or {@code -1} if the request was not answered by a rule
+         */
+        public int getCode() {
+            return code;
+        }
+
+        /**
+         * @return when the request was recorded, in milliseconds since the epoch
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return the body of the request, or {@code null} if not captured or the request didn't have one
+         */
+        public ByteString getBody() {
+            return body;
+        }
+
+        @Override
+        public String toString() {
+            return request + ", outcome=" + outcome + ", code=" + code + ", rule=" + rule;
+        }
+
+    }
+
+    /**
+     * A slot of the ring buffer: all its fields are volatile, so the payload read between the two reads of the version
+     * can't be reordered after the second one
+     */
+    private static final class Slot {
+        static final AtomicLongFieldUpdater<Slot> VERSION = AtomicLongFieldUpdater.newUpdater(Slot.class, "version");
+
+        volatile long version;
+        volatile Request request;
+        volatile Rule rule;
+        volatile Outcome outcome;
+        volatile int code;
+        volatile long timestamp;
+        volatile ByteString body;
+    }
+
+}
@@ -0,0 +1,332 @@
+package okhttp3.mock;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.mock.json.JsonPath;
+import okhttp3.mock.json.JsonReader;
+import okhttp3.mock.matchers.PathVariables;
+import okhttp3.mock.matchers.RequestView;
+import okio.Buffer;
+import okio.ByteString;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A response whose body and headers are templates, rendered with the data of every request it answers.
+ * <p>
+ * Placeholders are written as {@code {{source.name}}}, being the source one of:
+ * <ul>
+ *     <li>{@code path}: a variable captured by the {@link Rule.Builder#pathTemplate(String) path template} of the rule,
+ *     as {@code {{path.id}}}</li>
+ *     <li>{@code query}: the first value of a query parameter, as {@code {{query.page}}}</li>
+ *     <li>{@code header}: the last value of a request header, as {@code {{header.X-Request-Id}}}</li>
+ *     <li>{@code json}: a value of a JSON request body, as {@code {{json.$.user.name}}}: strings are rendered as their
+ *     still escaped content, without quotes, and any other value as its JSON text</li>
+ * </ul>
+ * Missing values are rendered as nothing. If the media type of the body is JSON ({@code application/json} or any
+ * {@code +json} one), the {@code path}, {@code query} and {@code header} values are escaped as JSON string contents,
+ * so they can be placed between quotes, as the {@code json} strings.
+ * <p>
+ * Templates are parsed only once, into literal byte chunks and slots, so rendering just writes them straight into
+ * the {@link Buffer} of the response. A body without placeholders is served as a static one.
+ * <p>
+ * Example:
+ * <pre>{@code
+ *  interceptor.addRule()
+ *      .get()
+ *      .pathTemplate("/users/{id}")
+ *      .respondTemplate("{\"id\": \"{{path.id}}\", \"page\": {{query.page}}}", MEDIATYPE_JSON)
+ *      .header("Location", "/users/{{path.id}}");
+ * }</pre>
+ */
+public final class ResponseTemplate implements RuleAnswer {
+    private final int code;
+    private final Template body;
+    private final MediaType mediaType;
+    private final boolean json;
+    private final RepeatableBody staticBody;
+    private volatile Header[] headers = new Header[0];
+
+    ResponseTemplate(@HttpCode int code, String body, MediaType mediaType) {
+        this.code = code;
+        this.body = Template.parse(body);
+        this.mediaType = mediaType;
+        this.json = mediaType != null && ("json".equals(mediaType.subtype()) || mediaType.subtype().endsWith("+json"));
+        this.staticBody = this.body.text != null ? RepeatableBody.of(ByteString.encodeUtf8(body), mediaType) : null;
+    }
+
+    /**
+     * Adds a header to the responses
+     *
+     * @param name  the name of the header
+     * @param value the template of its value
+     * @return this template
+     */
+    public ResponseTemplate header(String name, String value) {
+        Header[] headers = Arrays.copyOf(this.headers, this.headers.length + 1);
+        headers[headers.length - 1] = new Header(name, Template.parse(value));
+        this.headers = headers;
+        return this;
+    }
+
+    @Override
+    public Response.Builder respond(Request request) {
+        return respond(request, RequestView.of(request));
+    }
+
+    /**
+     * Renders the response of a request, reading its body through the view its rule matched it with
+     */
+    Response.Builder respond(Request request, RequestView view) {
+        Context context = new Context(request, view);
+        Response.Builder builder = new Response.Builder().code(code);
+        for (Header header : headers) {
+            builder.addHeader(header.name, header.value.renderText(context));
+        }
+        if (staticBody != null) {
+            return builder.body(staticBody.fork());
+        }
+        Buffer buffer = new Buffer();
+        body.render(context, buffer, json);
+        return builder.body(ResponseBody.create(mediaType, buffer.size(), buffer));
+    }
+
+    private enum Kind {PATH, QUERY, HEADER, JSON}
+
+    /**
+     * A template parsed into its parts: literal {@link ByteString}s and {@link Slot}s
+     */
+    private static final class Template {
+        private final Object[] parts;
+        private final String text;
+
+        private Template(Object[] parts, String text) {
+            this.parts = parts;
+            this.text = text;
+        }
+
+        static Template parse(String template) {
+            List<Object> parts = new ArrayList<>();
+            boolean literal = true;
+            int start = 0;
+            int open;
+            while ((open = template.indexOf("{{", start)) >= 0) {
+                int close = template.indexOf("}}", open + 2);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unterminated placeholder at " + open + " of template: " + template);
+                }
+                if (open > start) {
+                    parts.add(ByteString.encodeUtf8(template.substring(start, open)));
+                }
+                parts.add(Slot.parse(template.substring(open + 2, close).trim(), open, template));
+                literal = false;
+                start = close + 2;
+            }
+            if (start < template.length()) {
+                parts.add(ByteString.encodeUtf8(template.substring(start)));
+            }
+            return new Template(parts.toArray(), literal ? template : null);
+        }
+
+        /**
+         * @param escape if the values of the slots are placed in a JSON document, escaping them as string contents
+         */
+        void render(Context context, Buffer out, boolean escape) {
+            for (Object part : parts) {
+                if (part instanceof ByteString) {
+                    out.write((ByteString) part);
+
+                } else {
+                    ((Slot) part).render(context, out, escape);
+                }
+            }
+        }
+
+        String renderText(Context context) {
+            if (text != null) {
+                return text;
+            }
+            Buffer buffer = new Buffer();
+            render(context, buffer, false);
+            return buffer.readUtf8();
+        }
+
+    }
+
+    private static final class Slot {
+        private final Kind kind;
+        private final String name;
+        private final JsonPath jsonPath;
+
+        private Slot(Kind kind, String name) {
+            this.kind = kind;
+            this.name = name;
+            this.jsonPath = kind == Kind.JSON ? new JsonPath(name) : null;
+        }
+
+        static Slot parse(String expression, int position, String template) {
+            int dot = expression.indexOf('.');
+            String name = dot > 0 ? expression.substring(dot + 1) : "";
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Missing name of placeholder {{" + expression + "}} at " + position + " of template: " + template);
+            }
+            switch (expression.substring(0, dot)) {
+                case "path":
+                    return new Slot(Kind.PATH, name);
+                case "query":
+                    return new Slot(Kind.QUERY, name);
+                case "header":
+                    return new Slot(Kind.HEADER, name);
+                case "json":
+                    return new Slot(Kind.JSON, name);
+                default:
+                    throw new IllegalArgumentException("Unknown placeholder {{" + expression + "}} at " + position + " of template: " + template);
+            }
+        }
+
+        void render(Context context, Buffer out, boolean escape) {
+            String value;
+            switch (kind) {
+                case PATH:
+                    value = context.variables().get(name);
+                    break;
+                case QUERY:
+                    value = context.request.url().queryParameter(name);
+                    break;
+                case HEADER:
+                    value = context.request.header(name);
+                    break;
+                default:
+                    renderJson(context, out);
+                    return;
+            }
+            if (value == null) {
+                return;
+            }
+            if (escape) {
+                writeEscaped(value, out);
+
+            } else {
+                out.writeUtf8(value);
+            }
+        }
+
+        /**
+         * Writes a value as the content of a JSON string
+         */
+        private static void writeEscaped(String value, Buffer out) {
+            int start = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c != '"' && c != '\\' && c >= 0x20) {
+                    continue;
+                }
+                out.writeUtf8(value, start, i);
+                switch (c) {
+                    case '"':
+                    case '\\':
+                        out.writeByte('\\').writeByte(c);
+                        break;
+                    case '\n':
+                        out.writeUtf8("\\n");
+                        break;
+                    case '\r':
+                        out.writeUtf8("\\r");
+                        break;
+                    case '\t':
+                        out.writeUtf8("\\t");
+                        break;
+                    default:
+                        out.writeUtf8(String.format("\\u%04x", (int) c));
+                }
+                start = i + 1;
+            }
+            out.writeUtf8(value, start, value.length());
+        }
+
+        private void renderJson(Context context, Buffer out) {
+            Buffer body = context.body();
+            if (body == null) {
+                return;
+            }
+            // the copy shares the segments of the body, so selecting a value doesn't copy it
+            JsonReader reader = new JsonReader(body.copy());
+            try {
+                if (!jsonPath.select(reader)) {
+                    return;
+                }
+                boolean string = reader.peek() == JsonReader.Token.STRING;
+                long start = reader.position();
+                reader.skipValue();
+                long end = reader.position();
+                if (string) {
+                    // the still escaped content, without its quotes
+                    start++;
+                    end--;
+                }
+                body.copyTo(out, start, end - start);
+
+            } catch (IOException e) {
+                // not a JSON body, rendered as a missing value
+            }
+        }
+
+    }
+
+    private static final class Header {
+        private final String name;
+        private final Template value;
+
+        Header(String name, Template value) {
+            this.name = name;
+            this.value = value;
+        }
+
+    }
+
+    /**
+     * The data of the request being rendered, looked up only once
+     */
+    private static final class Context {
+        private final Request request;
+        private final RequestView view;
+        private PathVariables variables;
+        private Buffer body;
+        private boolean bodyRead;
+
+        Context(Request request, RequestView view) {
+            this.request = request;
+            this.view = view;
+        }
+
+        PathVariables variables() {
+            if (variables == null) {
+                variables = PathVariables.of(request);
+            }
+            return variables;
+        }
+
+        /**
+         * @return the content of the request body, or {@code null} if it has none or it can't be read again.
+         * It's read through the view of the request, so a body already read by the matchers of the rule is not read again
+         */
+        Buffer body() {
+            if (!bodyRead) {
+                bodyRead = true;
+                RequestBody requestBody = request.body();
+                if (requestBody != null && !requestBody.isDuplex() && !requestBody.isOneShot()) {
+                    body = new Buffer().write(view.body());
+                }
+            }
+            return body;
+        }
+
+    }
+
+}
@@ -2,22 +2,32 @@ package okhttp3.mock;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import okhttp3.Call;
+import okhttp3.Headers;
 import okhttp3.MediaType;
 import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okhttp3.mock.matchers.BodyBytesMatcher;
+import okhttp3.mock.matchers.BodyDigestMatcher;
 import okhttp3.mock.matchers.BodyMatcher;
 import okhttp3.mock.matchers.HeaderMatcher;
+import okhttp3.mock.matchers.JsonBodyMatcher;
 import okhttp3.mock.matchers.Matcher;
 import okhttp3.mock.matchers.MethodMatcher;
 import okhttp3.mock.matchers.NotMatcher;
 import okhttp3.mock.matchers.OrMatcher;
 import okhttp3.mock.matchers.PathMatcher;
+import okhttp3.mock.matchers.PathTemplateMatcher;
+import okhttp3.mock.matchers.PathVariables;
 import okhttp3.mock.matchers.QueryParamMatcher;
+import okhttp3.mock.matchers.RequestView;
 import okhttp3.mock.matchers.URLMatcher;
-import okio.Buffer;
+import okio.ByteString;
+import okio.Okio;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
@@ -26,6 +36,10 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 import static okhttp3.mock.HttpCode.HTTP_200_OK;
@@ -45,56 +59,230 @@ import static okhttp3.mock.matchers.MatcherHelper.suffix;
 
 public class Rule {
     private final List<Matcher> matchers;
+    private final Matcher[] evaluation;
     private final RuleAnswer answer;
     private final long delay;
-    private int times;
+    private final long bodyDelay;
+    private final AtomicInteger times;
+    private final PathTemplateMatcher template;
+    private volatile String responseMessage;
 
-    private Rule(List<Matcher> matchers, RuleAnswer answer, int times, long delay) {
+    private Rule(List<Matcher> matchers, RuleAnswer answer, int times, long delay, long bodyDelay) {
         this.matchers = matchers;
+        this.evaluation = evaluation(matchers);
         this.answer = answer;
-        this.times = times;
+        this.template = template(matchers);
+        this.times = new AtomicInteger(times);
         this.delay = delay;
+        this.bodyDelay = bodyDelay;
     }
 
     protected Response accept(Request request) {
-        if (isConsumed()) {
+        RequestView view = RequestView.of(request);
+        if (!matches(view) || !claim()) {
             return null;
         }
-        for (Matcher matcher : matchers) {
+        try {
+            return respond(view, null, 0);
+
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            if (!matcher.matches(request)) {
-                return null;
+    boolean matches(RequestView view) {
+        return !isConsumed() && mismatch(view) == null;
+    }
+
+    /**
+     * @return the matchers in their evaluation order: by their {@link Matcher#cost()}, and then as declared
+     */
+    private static Matcher[] evaluation(List<Matcher> matchers) {
+        Matcher[] evaluation = matchers.toArray(new Matcher[0]);
+        int[] costs = new int[evaluation.length];
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = evaluation[i].cost();
+        }
+        // a stable insertion sort, as rules rarely have more than a few matchers
+        for (int i = 1; i < evaluation.length; i++) {
+            Matcher matcher = evaluation[i];
+            int cost = costs[i];
+            int j = i - 1;
+            for (; j >= 0 && costs[j] > cost; j--) {
+                evaluation[j + 1] = evaluation[j];
+                costs[j + 1] = costs[j];
             }
+            evaluation[j + 1] = matcher;
+            costs[j + 1] = cost;
         }
-        if (delay > 0) {
-            try {
-                Thread.sleep(delay);
+        return evaluation;
+    }
 
-            } catch (InterruptedException ignored) {
+    /**
+     * Evaluates the matchers of this rule from the cheapest to the most expensive one,
+     * so a body is never read for a request already rejected by a cheaper check
+     *
+     * @param view the request
+     * @return the first evaluated matcher of this rule not matching the given request,
+     * or {@code null} if all of them match
+     */
+    Matcher mismatch(RequestView view) {
+        for (Matcher matcher : evaluation) {
+
+            if (!matcher.matches(view)) {
+                return matcher;
             }
         }
-        if (times > 0 && times != Integer.MAX_VALUE) {
-            times--;
+        return null;
+    }
+
+    /**
+     * Atomically claims one of the remaining uses of this rule, so concurrent calls can't consume it more than
+     * its configured {@code times}
+     *
+     * @return {@code true} if a use was claimed, {@code false} if the rule was already consumed
+     */
+    boolean claim() {
+        while (true) {
+            int current = times.get();
+            if (current == 0) {
+                return false;
+            }
+            if (current < 0 || current == Integer.MAX_VALUE || times.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+    }
+
+    Response respond(RequestView view, Call call, int readTimeoutMillis) throws IOException {
+        await(call, readTimeoutMillis);
+        return answer(view, call, readTimeoutMillis);
+    }
+
+    /**
+     * Waits for the configured delay of this rule, if any
+     */
+    void await(Call call, int readTimeoutMillis) throws IOException {
+        if (delay > 0) {
+            Latency.await(call, delay, readTimeoutMillis);
+        }
+    }
+
+    private static PathTemplateMatcher template(List<Matcher> matchers) {
+        for (Matcher matcher : matchers) {
+            if (matcher instanceof PathTemplateMatcher) {
+                return (PathTemplateMatcher) matcher;
+            }
         }
-        return answer.respond(request)
-            .protocol(Protocol.HTTP_1_1)
+        return null;
+    }
+
+    /**
+     * Builds the response of this rule, without waiting for its delay
+     *
+     * @param view the request, as matched by this rule
+     */
+    Response answer(RequestView view, Call call, int readTimeoutMillis) {
+        Request request = view.request();
+        RuleAnswer answer = this.answer;
+        while (answer instanceof ChoiceAnswer) {
+            answer = ((ChoiceAnswer) answer).next();
+        }
+        Request answered = template != null ? withVariables(view) : request;
+        Response.Builder builder = answer instanceof ViewAnswer ?
+            ((ViewAnswer) answer).respond(answered, view) : answer.respond(answered);
+        if (!(answer instanceof PreparedAnswer)) {
+            builder.protocol(Protocol.HTTP_1_1).message(responseMessage());
+        }
+        Response response = builder
             .request(request)
-            .message("Rule response " + this)
             .build();
+        if (bodyDelay > 0) {
+            response = response.newBuilder()
+                .body(Latency.delayBody(response.body(), call, bodyDelay, readTimeoutMillis))
+                .build();
+        }
+        return response;
+    }
+
+    /**
+     * @return the given request, tagged with the {@link PathVariables} the template of this rule captured while
+     * matching it, if any
+     */
+    private Request withVariables(RequestView view) {
+        Request request = view.request();
+        PathVariables variables = template.variables(view);
+        return variables != null && !variables.asMap().isEmpty() ?
+            request.newBuilder().tag(PathVariables.class, variables).build() : request;
+    }
+
+    /**
+     * @return the status message of the responses of this rule, built only once
+     */
+    String responseMessage() {
+        String message = this.responseMessage;
+        if (message == null) {
+            this.responseMessage = message = "Rule response " + matchers;
+        }
+        return message;
     }
 
     public Map<Matcher, String> getFailReason(Request request) {
+        return getFailReason(RequestView.of(request));
+    }
+
+    Map<Matcher, String> getFailReason(RequestView view) {
+        return getFailReason(view, mismatch(view));
+    }
+
+    /**
+     * Same as {@link #getFailReason(Request)}, but reusing the result of a previous {@link #mismatch(RequestView)}:
+     * the matchers evaluated before it are known to match, so they are not evaluated again.
+     * The reasons are still reported in the declared order of the matchers
+     *
+     * @param view     the request
+     * @param mismatch the first matcher not matching the request
+     * @return the reasons
+     */
+    Map<Matcher, String> getFailReason(RequestView view, Matcher mismatch) {
         Map<Matcher, String> reasons = new LinkedHashMap<>();
+        if (mismatch == null) {
+            return reasons;
+        }
+        int matched = 0;
+        while (matched < evaluation.length && evaluation[matched] != mismatch) {
+            matched++;
+        }
         for (Matcher matcher : matchers) {
-            if (!matcher.matches(request)) {
-                reasons.put(matcher, matcher.failReason(request));
+            if (matcher == mismatch) {
+                reasons.put(matcher, matcher.failReason(view));
+
+            } else if (!isAnyOf(matcher, evaluation, matched) && !matcher.matches(view)) {
+                reasons.put(matcher, matcher.failReason(view));
             }
         }
         return reasons;
     }
 
+    private static boolean isAnyOf(Matcher matcher, Matcher[] matchers, int count) {
+        for (int i = 0; i < count; i++) {
+            if (matchers[i] == matcher) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    List<Matcher> getMatchers() {
+        return matchers;
+    }
+
+    long getDelay() {
+        return delay;
+    }
+
     public boolean isConsumed() {
-        return times == 0;
+        return times.get() == 0;
     }
 
     @Override
@@ -103,9 +291,11 @@ public class Rule {
     }
 
     public static class Builder {
+        private static final Request PROTOTYPE_REQUEST = new Request.Builder().url("http://localhost/").build();
         private final List<Matcher> matchers = new LinkedList<>();
         private int times = 1;
         private long delay = 0;
+        private long bodyDelay = 0;
         private boolean negateNext;
         private boolean orNext;
 
@@ -209,6 +399,18 @@ public class Rule {
             return this;
         }
 
+        /**
+         * Matches the path against a template as {@code /users/{id}/orders/{orderId}}, without any regex.
+         * The captured variables are available to the answer of the rule through {@link PathVariables#of(Request)}.
+         *
+         * @param template the path template
+         * @return this builder
+         */
+        public Builder pathTemplate(String template) {
+            matches(new PathTemplateMatcher(template));
+            return this;
+        }
+
         public Builder pathStarts(String prefix) {
             pathMatches(prefix(prefix));
             return this;
@@ -272,6 +474,105 @@ public class Rule {
             return this;
         }
 
+        /**
+         * Matches JSON bodies having a value at the given path, as {@code $.user.id}
+         *
+         * @see JsonBodyMatcher
+         */
+        public Builder hasJsonPath(String path) {
+            matches(new JsonBodyMatcher(path));
+            return this;
+        }
+
+        /**
+         * Matches JSON bodies having the given value at the given path, regardless of their key order or formatting
+         *
+         * @param path  the JSON path of the value, as {@code $.user.id}
+         * @param value the expected value: a {@link String}, a {@link Number}, a {@link Boolean} or {@code null}
+         * @return this builder
+         * @see JsonBodyMatcher
+         */
+        public Builder jsonPath(String path, Object value) {
+            matches(new JsonBodyMatcher(path, value));
+            return this;
+        }
+
+        /**
+         * Matches the exact bytes of the body, decoding it first if it has a {@code gzip} or {@code deflate}
+         * {@code Content-Encoding}. The body is streamed, reading it only until a difference is found.
+         *
+         * @param content the expected content
+         * @return this builder
+         */
+        public Builder body(ByteString content) {
+            matches(new BodyBytesMatcher(BodyBytesMatcher.Mode.EQUALS, content));
+            return this;
+        }
+
+        /**
+         * Same as {@link #body(ByteString)}, but reading the body only until the given prefix
+         */
+        public Builder bodyStarts(ByteString prefix) {
+            matches(new BodyBytesMatcher(BodyBytesMatcher.Mode.STARTS_WITH, prefix));
+            return this;
+        }
+
+        public Builder bodyContains(ByteString content) {
+            return bodyContains(content, Long.MAX_VALUE);
+        }
+
+        /**
+         * Same as {@link #body(ByteString)}, but reading the body only until the first occurrence of the given content
+         *
+         * @param content  the expected content
+         * @param maxBytes the max number of (decoded) bytes to read before failing the match
+         * @return this builder
+         */
+        public Builder bodyContains(ByteString content, long maxBytes) {
+            matches(new BodyBytesMatcher(BodyBytesMatcher.Mode.CONTAINS, content, maxBytes));
+            return this;
+        }
+
+        /**
+         * Matches the body by its digest, hashing it while it's streamed, so it's never held in memory
+         *
+         * @param algorithm the algorithm of the digest
+         * @param digest    the expected digest
+         * @return this builder
+         * @see BodyDigestMatcher
+         */
+        public Builder bodyDigest(BodyDigestMatcher.Algorithm algorithm, ByteString digest) {
+            matches(new BodyDigestMatcher(algorithm, digest));
+            return this;
+        }
+
+        /**
+         * Same as {@link #bodyDigest(BodyDigestMatcher.Algorithm, ByteString)}, with the digest of the given content,
+         * also rejecting bodies of a different length without hashing them
+         *
+         * @param algorithm the algorithm of the digest
+         * @param content   the expected content
+         * @return this builder
+         */
+        public Builder bodyDigestOf(BodyDigestMatcher.Algorithm algorithm, byte[] content) {
+            matches(BodyDigestMatcher.of(algorithm, content));
+            return this;
+        }
+
+        /**
+         * Same as {@link #bodyDigestOf(BodyDigestMatcher.Algorithm, byte[])}, with the content of the given file,
+         * read right away
+         *
+         * @param algorithm the algorithm of the digest
+         * @param content   the file with the expected content
+         * @return this builder
+         * @throws IOException if the file can't be read
+         */
+        public Builder bodyDigestOf(BodyDigestMatcher.Algorithm algorithm, File content) throws IOException {
+            matches(BodyDigestMatcher.of(algorithm, content));
+            return this;
+        }
+
         public Builder not() {
             if (negateNext) {
                 throw new IllegalStateException("'not()' can't be followed by another 'not()'");
@@ -323,11 +624,33 @@ public class Rule {
             return this;
         }
 
+        /**
+         * Delays the response of this rule, holding back its headers.
+         * <p>
+         * The call waits without sleeping: it's aborted as soon as it gets canceled or its read timeout is reached.
+         *
+         * @param milliseconds the delay
+         * @return this builder
+         */
         public Builder delay(long milliseconds) {
             this.delay = milliseconds;
             return this;
         }
 
+        /**
+         * Delays the body of the response of this rule, holding back its first byte.
+         * <p>
+         * Unlike {@link #delay(long)}, the headers are available immediately, so the interceptor chain is released
+         * right away and the wait is paid only by the caller reading the body.
+         *
+         * @param milliseconds the delay
+         * @return this builder
+         */
+        public Builder bodyDelay(long milliseconds) {
+            this.bodyDelay = milliseconds;
+            return this;
+        }
+
         public Response.Builder respond(@NonNull String body) {
             return respond(body, MEDIATYPE_TEXT);
         }
@@ -356,13 +679,28 @@ public class Rule {
             return respond(contentLength, body, MEDIATYPE_RAW_DATA);
         }
 
+        /**
+         * Responds with the given stream, read lazily when the rule is hit.
+         * <p>
+         * If the rule can be hit more than once, its content is kept in memory after the first hit.
+         * Use {@link #respondStream(BodySource)} to stream it again on every hit instead.
+         */
         public Response.Builder respond(long contentLength, @NonNull InputStream body, @NonNull MediaType mediaType) {
-            try {
-                return respond(ResponseBody.create(mediaType, contentLength, new Buffer().readFrom(body)));
+            return respond(ResponseBody.create(mediaType, contentLength, Okio.buffer(Okio.source(body))));
+        }
 
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+        public Response.Builder respondStream(@NonNull BodySource body) {
+            return respondStream(body, MEDIATYPE_RAW_DATA);
+        }
+
+        /**
+         * Responds with the given source, opened again on every hit of the rule, so its content is never held in memory.
+         * <p>
+         * Not an overload of {@code respond}, so Kotlin lambdas given to {@code respond} are never taken for a
+         * {@link BodySource}.
+         */
+        public Response.Builder respondStream(@NonNull BodySource body, @NonNull MediaType mediaType) {
+            return respond(RepeatableBody.of(body, mediaType));
         }
 
         public Response.Builder respond(@HttpCode int code) {
@@ -381,17 +719,52 @@ public class Rule {
             return builder;
         }
 
+        public ResponseTemplate respondTemplate(@NonNull String body, @NonNull MediaType mediaType) {
+            return respondTemplate(HTTP_200_OK, body, mediaType);
+        }
+
+        /**
+         * Responds with the given body template, rendered with the data of the request on every hit of the rule.
+         * <p>
+         * The template is parsed only once, here. Use the returned {@link ResponseTemplate} to add templated headers.
+         *
+         * @param code      the code of the response
+         * @param body      the template of the body, with {@code {{source.name}}} placeholders
+         * @param mediaType the type of the body
+         * @return the template of the response
+         * @see ResponseTemplate
+         */
+        public ResponseTemplate respondTemplate(@HttpCode int code, @NonNull String body, @NonNull MediaType mediaType) {
+            ResponseTemplate template = new ResponseTemplate(code, body, mediaType);
+            // renders with the view the request was matched with, so its body is read only once
+            answer((ViewAnswer) template::respond);
+            return template;
+        }
+
+        /**
+         * Replays the given cassette: the rule matches the requests recorded in it, answering their recorded responses.
+         * <p>
+         * Use {@link #anyTimes()} to replay every interaction as many times as requested.
+         *
+         * @param cassette the cassette to replay
+         */
+        public void replay(Cassette cassette) {
+            matches(cassette);
+            answer((PreparedAnswer & ViewAnswer) cassette::respond);
+        }
+
         public void answer(RuleAnswer answer) {
-            onBuild(new Rule(Collections.unmodifiableList(matchers), answer, times, delay));
+            onBuild(new Rule(Collections.unmodifiableList(matchers), answer, times, delay, bodyDelay));
         }
 
         void onBuild(Rule rule) {
         }
 
-        class FinalRuleBuilder extends Response.Builder implements RuleAnswer {
+        class FinalRuleBuilder extends Response.Builder implements PreparedAnswer {
             private final boolean repeteable = times != 1;
-            private ResponseBody repeteableBody;
-            private byte repeteableBodyContent[];
+            private final Lock prototypeLock = new ReentrantLock();
+            private RepeatableBody repeteableBody;
+            private volatile Response prototype;
 
             Rule buildRule() {
                 if (negateNext) {
@@ -403,36 +776,153 @@ public class Rule {
                 if (times < 1) {
                     throw new IllegalStateException("Time can't be less than 1!");
                 }
-                if (delay < 0) {
+                if (delay < 0 || bodyDelay < 0) {
                     throw new IllegalStateException("Delay can't be less than 0!");
                 }
-                return new Rule(Collections.unmodifiableList(matchers), this, times, delay);
+                Rule rule = new Rule(Collections.unmodifiableList(matchers), this, times, delay, bodyDelay);
+                protocol(Protocol.HTTP_1_1);
+                message(rule.responseMessage());
+                return rule;
             }
 
             @Override
             public Response.Builder body(ResponseBody body) {
-                if (repeteable) {
-                    repeteableBody = body;
-                    try {
-                        repeteableBodyContent = body.bytes();
-
-                    } catch (IOException e) {
-                        throw new IllegalArgumentException("error preloading body for rule " + this, e);
+                ResponseBody repeatable = repeteable && !(body instanceof RepeatableBody) ? RepeatableBody.cached(body) : body;
+                return change(() -> {
+                    if (repeatable instanceof RepeatableBody) {
+                        repeteableBody = (RepeatableBody) repeatable;
                     }
+                    return super.body(repeatable);
+                });
+            }
+
+            @Override
+            public Response.Builder protocol(Protocol protocol) {
+                return change(() -> super.protocol(protocol));
+            }
+
+            @Override
+            public Response.Builder code(int code) {
+                return change(() -> super.code(code));
+            }
+
+            @Override
+            public Response.Builder message(String message) {
+                return change(() -> super.message(message));
+            }
+
+            @Override
+            public Response.Builder header(String name, String value) {
+                return change(() -> super.header(name, value));
+            }
+
+            @Override
+            public Response.Builder addHeader(String name, String value) {
+                return change(() -> super.addHeader(name, value));
+            }
+
+            @Override
+            public Response.Builder removeHeader(String name) {
+                return change(() -> super.removeHeader(name));
+            }
+
+            @Override
+            public Response.Builder headers(Headers headers) {
+                return change(() -> super.headers(headers));
+            }
+
+            /**
+             * Applies a change to this builder, discarding the prototype built from it, if any,
+             * so the change applies to the next hits of the rule too
+             */
+            private Response.Builder change(Supplier<Response.Builder> change) {
+                prototypeLock.lock();
+                try {
+                    prototype = null;
+                    return change.get();
+
+                } finally {
+                    prototypeLock.unlock();
                 }
-                return super.body(body);
             }
 
             @Override
             public Response.Builder respond(Request request) {
-                if (repeteable) {
-                    Buffer buffer = repeteableBody.source().buffer();
-                    buffer.clear();
-                    buffer.write(repeteableBodyContent);
+                if (!repeteable) {
+                    return this;
                 }
-                return this;
+                // concurrent hits must not share this builder nor the body's read position
+                return prototype().newBuilder().body(repeteableBody.fork());
             }
 
+            /**
+             * The response shared by all the hits of a repeatable rule, with its code, headers, message and protocol
+             * already set, so a hit only attaches its request and a view of the body.
+             * <p>
+             * It's built on the first hit, as this builder can still be customized after the rule is registered.
+             */
+            private Response prototype() {
+                Response prototype = this.prototype;
+                if (prototype == null) {
+                    prototypeLock.lock();
+                    try {
+                        prototype = this.prototype;
+                        if (prototype == null) {
+                            this.prototype = prototype = request(PROTOTYPE_REQUEST).build();
+                        }
+
+                    } finally {
+                        prototypeLock.unlock();
+                    }
+                }
+                return prototype;
+            }
+
+        }
+
+    }
+
+    /**
+     * An answer whose responses already have their protocol and message set
+     */
+    interface PreparedAnswer extends RuleAnswer {
+    }
+
+    /**
+     * An answer reading its request through the {@link RequestView} the rule matched it with,
+     * so what the matchers already looked up (as the body) is not read again
+     */
+    interface ViewAnswer extends RuleAnswer {
+
+        /**
+         * @param request the request, as tagged by the rule
+         * @param view    the view the rule matched the request with
+         * @return the response
+         */
+        Response.Builder respond(Request request, RequestView view);
+
+        @Override
+        default Response.Builder respond(Request request) {
+            return respond(request, RequestView.of(request));
+        }
+
+    }
+
+    /**
+     * An answer delegating every hit to one of several others, chosen by {@link #next()}
+     */
+    interface ChoiceAnswer extends RuleAnswer {
+
+        /**
+         * Claims the answer of the next hit
+         *
+         * @return the chosen answer
+         */
+        RuleAnswer next();
+
+        @Override
+        default Response.Builder respond(Request request) {
+            return next().respond(request);
         }
 
     }
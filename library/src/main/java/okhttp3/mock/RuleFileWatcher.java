@@ -0,0 +1,106 @@
+package okhttp3.mock;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+
+/**
+ * Reloads the rules of a {@link MockInterceptor} every time their file changes, on a background daemon thread.
+ *
+ * @see RuleFiles#watch(MockInterceptor, File)
+ */
+public final class RuleFileWatcher implements Closeable {
+    private final MockInterceptor interceptor;
+    private final File file;
+    private final WatchService watchService;
+    private final Thread thread;
+    private volatile int reloads;
+    private volatile IOException lastError;
+
+    RuleFileWatcher(MockInterceptor interceptor, File file) throws IOException {
+        this.interceptor = interceptor;
+        this.file = file.getAbsoluteFile();
+        reload();
+        if (lastError != null) {
+            throw lastError;
+        }
+
+        Path dir = this.file.getParentFile().toPath();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "okhttp-mock-rules-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * @return the number of times the rules were successfully loaded, including the initial load
+     */
+    public int getReloads() {
+        return reloads;
+    }
+
+    /**
+     * @return the error of the last reload, or {@code null} if it succeeded
+     */
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    private void watch() {
+        Path name = file.toPath().getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context());
+                }
+                if (changed) {
+                    reload();
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private void reload() {
+        try {
+            List<Rule> rules = RuleFiles.read(file);
+            interceptor.replaceRules(rules);
+            lastError = null;
+            reloads++;
+
+        } catch (IOException e) {
+            lastError = e;
+        }
+    }
+
+    /**
+     * Stops watching the file, keeping the last loaded rules
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        try {
+            thread.join();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,256 @@
+package okhttp3.mock;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.mock.json.JsonReader;
+import okio.Okio;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static okhttp3.mock.MediaTypes.MEDIATYPE_RAW_DATA;
+import static okhttp3.mock.MediaTypes.MEDIATYPE_TEXT;
+import static okhttp3.mock.matchers.MatcherHelper.exact;
+import static okhttp3.mock.matchers.MatcherHelper.prefix;
+import static okhttp3.mock.matchers.MatcherHelper.suffix;
+
+/**
+ * A helper class to load {@link Rule}s declared in JSON files, as an array of rules like:
+ * <pre>{@code
+ * [
+ *   {
+ *     "method": "GET",
+ *     "url": "https://api.github.com/users/gmazzo",
+ *     "headers": {"Accept": {"startsWith": "application/"}},
+ *     "params": {"page": {"matches": "\\d+"}},
+ *     "times": "any",
+ *     "delay": 100,
+ *     "response": {
+ *       "code": 200,
+ *       "headers": {"X-Test": "aValue"},
+ *       "contentType": "application/json",
+ *       "bodyFile": "gmazzo.json"
+ *     }
+ *   }
+ * ]
+ * }</pre>
+ * The {@code url}, {@code path}, {@code headers}, {@code params} and {@code body} matchers take either a literal
+ * value or an object with one of {@code equals}, {@code startsWith}, {@code endsWith} or {@code matches} (a regex).
+ * The response {@code body} is given inline, or as a {@code bodyFile} relative to the rules file, streamed on every hit.
+ * <p>
+ * Files are streamed, building every rule as soon as it's read, so big rule sets are never held in memory as JSON.
+ */
+public final class RuleFiles {
+
+    /**
+     * Reads the rules declared in the given file
+     *
+     * @param file the rules file
+     * @return the rules, in declaration order
+     * @throws IOException if the file can't be read or it's not a valid rules file
+     */
+    public static List<Rule> read(File file) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        File base = file.getAbsoluteFile().getParentFile();
+        try (JsonReader reader = new JsonReader(Okio.buffer(Okio.source(file)))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                rules.add(readRule(reader, base));
+            }
+            reader.endArray();
+            reader.peek(); // ensures there is nothing else in the file
+        }
+        return rules;
+    }
+
+    /**
+     * Adds the rules declared in the given file to the given interceptor, all at once after the whole file was read:
+     * if it can't be read, no rule is added
+     *
+     * @param interceptor the interceptor to add the rules to
+     * @param file        the rules file
+     * @return the number of rules added
+     * @throws IOException if the file can't be read or it's not a valid rules file
+     */
+    public static int load(MockInterceptor interceptor, File file) throws IOException {
+        List<Rule> rules = read(file);
+        interceptor.addRules(rules);
+        return rules.size();
+    }
+
+    /**
+     * Replaces the rules of the given interceptor with the ones declared in the given file,
+     * and again every time the file changes, until the returned watcher is closed.
+     * <p>
+     * Every reload swaps all the rules at once (see {@link MockInterceptor#replaceRules}), so in-flight calls are
+     * never dispatched against a partially loaded file. If the file can't be loaded, the previous rules are kept.
+     *
+     * @param interceptor the interceptor to load the rules into
+     * @param file        the rules file
+     * @return the watcher of the file
+     * @throws IOException if the file can't be initially loaded or watched
+     */
+    public static RuleFileWatcher watch(MockInterceptor interceptor, File file) throws IOException {
+        return new RuleFileWatcher(interceptor, file);
+    }
+
+    private static Rule readRule(JsonReader reader, File base) throws IOException {
+        long start = reader.position();
+        Rule.Builder builder = new Rule.Builder();
+        ResponseSpec response = null;
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "method":
+                        builder.method(reader.nextString());
+                        break;
+                    case "url":
+                        builder.urlMatches(readPattern(reader));
+                        break;
+                    case "path":
+                        builder.pathMatches(readPattern(reader));
+                        break;
+                    case "headers":
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            builder.headerMatches(reader.nextName(), readPattern(reader));
+                        }
+                        reader.endObject();
+                        break;
+                    case "params":
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            builder.paramMatches(reader.nextName(), readPattern(reader));
+                        }
+                        reader.endObject();
+                        break;
+                    case "body":
+                        builder.bodyMatches(readPattern(reader));
+                        break;
+                    case "times":
+                        if (reader.peek() == JsonReader.Token.STRING) {
+                            if (!"any".equals(reader.nextString())) {
+                                throw new IllegalArgumentException("'times' must be a number or \"any\"");
+                            }
+                            builder.anyTimes();
+
+                        } else {
+                            builder.times(reader.nextInt());
+                        }
+                        break;
+                    case "delay":
+                        builder.delay(reader.nextLong());
+                        break;
+                    case "bodyDelay":
+                        builder.bodyDelay(reader.nextLong());
+                        break;
+                    case "response":
+                        response = readResponse(reader, base);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown property '" + name + "'");
+                }
+            }
+            reader.endObject();
+            if (response == null) {
+                throw new IllegalArgumentException("Missing 'response'");
+            }
+
+            // the response is built last, as it depends on the rule being repeatable or not
+            Response.Builder answer = builder.respond(response.code, response.body());
+            answer.headers(response.headers.build());
+            return ((Rule.Builder.FinalRuleBuilder) answer).buildRule();
+
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IOException("Invalid rule at byte " + start + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static ResponseSpec readResponse(JsonReader reader, File base) throws IOException {
+        ResponseSpec response = new ResponseSpec();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "code":
+                    response.code = reader.nextInt();
+                    break;
+                case "headers":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        response.headers.add(reader.nextName(), reader.nextString());
+                    }
+                    reader.endObject();
+                    break;
+                case "contentType":
+                    response.contentType = MediaType.parse(reader.nextString());
+                    break;
+                case "body":
+                    response.body = reader.nextString();
+                    break;
+                case "bodyFile":
+                    response.bodyFile = new File(base, reader.nextString());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown response property '" + name + "'");
+            }
+        }
+        reader.endObject();
+        return response;
+    }
+
+    private static Pattern readPattern(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonReader.Token.BEGIN_OBJECT) {
+            return exact(reader.nextString());
+        }
+        reader.beginObject();
+        String kind = reader.nextName();
+        String value = reader.nextString();
+        if (reader.hasNext()) {
+            throw new IllegalArgumentException("Only one of 'equals', 'startsWith', 'endsWith' or 'matches' is allowed");
+        }
+        reader.endObject();
+        switch (kind) {
+            case "equals":
+                return exact(value);
+            case "startsWith":
+                return prefix(value);
+            case "endsWith":
+                return suffix(value);
+            case "matches":
+                return Pattern.compile(value);
+            default:
+                throw new IllegalArgumentException("Unknown matcher '" + kind + "'");
+        }
+    }
+
+    private static final class ResponseSpec {
+        private final Headers.Builder headers = new Headers.Builder();
+        private int code = 200;
+        private MediaType contentType;
+        private String body;
+        private File bodyFile;
+
+        ResponseBody body() {
+            if (bodyFile != null) {
+                if (body != null) {
+                    throw new IllegalArgumentException("Only one of 'body' or 'bodyFile' is allowed");
+                }
+                return RepeatableBody.of(FileResources.file(bodyFile), contentType != null ? contentType : MEDIATYPE_RAW_DATA);
+            }
+            return ResponseBody.create(contentType != null ? contentType : MEDIATYPE_TEXT, body != null ? body : "");
+        }
+
+    }
+
+    private RuleFiles() {
+    }
+
+}
@@ -0,0 +1,472 @@
+package okhttp3.mock;
+
+import okhttp3.mock.matchers.Matcher;
+import okhttp3.mock.matchers.MethodMatcher;
+import okhttp3.mock.matchers.OrMatcher;
+import okhttp3.mock.matchers.PathMatcher;
+import okhttp3.mock.matchers.PathTemplateMatcher;
+import okhttp3.mock.matchers.RequestView;
+import okhttp3.mock.matchers.URLMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static okhttp3.mock.matchers.MatcherHelper.exactText;
+import static okhttp3.mock.matchers.MatcherHelper.prefixText;
+
+/**
+ * Dispatch index of the {@link Rule}s of a {@link MockInterceptor}.
+ * <p>
+ * Rules are bucketed by their HTTP method and then by the most selective literal locator they declare
+ * (exact URL, exact path, path template, URL host or first path segment), so only the candidate rules of a request
+ * are evaluated. Path templates share a segment trie, walked once per request.
+ * Rules without any recognizable matcher fall back to an always evaluated list.
+ * Candidates are always yielded in registration order, preserving the first-registered-wins semantics.
+ * <p>
+ * Additions must be serialized by the caller, while lookups are lock-free and can run concurrently with them:
+ * every list is append-only and publishes its elements through a volatile size.
+ * <p>
+ * Consumed rules are only dropped by a {@link #compact() compaction}, which builds a new index without them,
+ * keeping them only in the history of registered rules.
+ */
+final class RuleIndex {
+    private static final String ANY_METHOD = "*";
+    private static final int MIN_COMPACTION_WASTE = 64;
+
+    private final Entries history;
+    private final Entries entries = new Entries();
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong waste = new AtomicLong();
+    private long nextSeq;
+
+    RuleIndex() {
+        this(new Entries(), 0);
+    }
+
+    private RuleIndex(Entries history, long nextSeq) {
+        this.history = history;
+        this.nextSeq = nextSeq;
+    }
+
+    void add(Rule rule) {
+        Entry entry = new Entry(nextSeq++, rule);
+        history.add(entry);
+        index(entry);
+    }
+
+    private void index(Entry entry) {
+        entries.add(entry);
+
+        Set<String> methods = new HashSet<>();
+        Locator locator = null;
+        for (Matcher matcher : entry.rule.getMatchers()) {
+            if (!collectMethods(matcher, methods)) {
+                Locator candidate = Locator.of(matcher);
+                if (candidate != null && (locator == null || candidate.kind.ordinal() < locator.kind.ordinal())) {
+                    locator = candidate;
+                }
+            }
+        }
+        if (methods.isEmpty()) {
+            methods.add(ANY_METHOD);
+        }
+        for (String method : methods) {
+            Bucket bucket = buckets.get(method);
+            if (bucket == null) {
+                buckets.put(method, bucket = new Bucket());
+            }
+            bucket.add(locator, entry);
+        }
+    }
+
+    /**
+     * Accounts consumed rules iterated by a lookup, to tell when a {@link #compact()} would pay off
+     *
+     * @param skipped the number of consumed rules the lookup iterated past
+     * @return {@code true} if the consumed rules iterated since this index was built exceed its size,
+     * so compacting it costs less than what they already wasted
+     */
+    boolean waste(int skipped) {
+        return waste.addAndGet(skipped) >= Math.max(MIN_COMPACTION_WASTE, entries.size());
+    }
+
+    /**
+     * Builds a copy of this index without its consumed rules, which are kept only as history.
+     * <p>
+     * The copy keeps the registration order of the rules, and this index keeps working for the lookups already
+     * iterating it. It must be serialized with {@link #add(Rule)}, as the history is shared with the copy.
+     *
+     * @return the compacted index
+     */
+    RuleIndex compact() {
+        RuleIndex index = new RuleIndex(history, nextSeq);
+        int size = entries.size();
+        for (int i = 0; i < size; i++) {
+            Entry entry = entries.get(i);
+            if (!entry.rule.isConsumed()) {
+                index.index(entry);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return the number of rules registered in this index, including the consumed ones
+     */
+    int size() {
+        return history.size();
+    }
+
+    /**
+     * @param index an index lower than a previously read {@link #size()}
+     * @return the rule registered at the given position
+     */
+    Rule get(int index) {
+        return history.get(index).rule;
+    }
+
+    /**
+     * @return all the rules registered in this index, including the consumed ones
+     */
+    List<Rule> rules() {
+        int size = history.size();
+        List<Rule> rules = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rules.add(history.get(i).rule);
+        }
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * @return the rules not consumed by the time of the last compaction, in registration order
+     */
+    Iterator<Rule> all() {
+        return new MergeIterator(Collections.singletonList(entries));
+    }
+
+    /**
+     * @param view the request to dispatch
+     * @return the rules that may match the given request, in registration order
+     */
+    Iterator<Rule> candidates(RequestView view) {
+        List<Entries> lists = new ArrayList<>(10);
+        for (String method : new String[]{view.method().toUpperCase(Locale.US), ANY_METHOD}) {
+            Bucket bucket = buckets.get(method);
+            if (bucket != null) {
+                bucket.collect(view, lists);
+            }
+        }
+        return new MergeIterator(lists);
+    }
+
+    private static boolean collectMethods(Matcher matcher, Set<String> methods) {
+        if (matcher instanceof MethodMatcher) {
+            methods.add(((MethodMatcher) matcher).getMethod().toUpperCase(Locale.US));
+            return true;
+
+        } else if (matcher instanceof OrMatcher) {
+            Set<String> alternatives = new HashSet<>();
+            for (Matcher alternative : ((OrMatcher) matcher).getMatchers()) {
+                if (!(alternative instanceof MethodMatcher)) {
+                    return false;
+                }
+                alternatives.add(((MethodMatcher) alternative).getMethod().toUpperCase(Locale.US));
+            }
+            methods.addAll(alternatives);
+            return true;
+        }
+        return false;
+    }
+
+    private static String firstSegment(String path) {
+        int end = path.indexOf('/', 1);
+        return path.startsWith("/") && end > 0 ? path.substring(1, end) : null;
+    }
+
+    private enum Kind {URL, PATH, TEMPLATE, HOST, SEGMENT}
+
+    private static final class Locator {
+        private final Kind kind;
+        private final String key;
+        private final List<String> segments;
+
+        private Locator(Kind kind, String key) {
+            this(kind, key, null);
+        }
+
+        private Locator(Kind kind, String key, List<String> segments) {
+            this.kind = kind;
+            this.key = key;
+            this.segments = segments;
+        }
+
+        static Locator of(Matcher matcher) {
+            if (matcher instanceof URLMatcher) {
+                URLMatcher urlMatcher = (URLMatcher) matcher;
+                String url = exactText(urlMatcher.getPattern());
+                if (url != null) {
+                    return new Locator(Kind.URL, url);
+                }
+                String host = host(prefixText(urlMatcher.getPattern()));
+                if (host != null) {
+                    return new Locator(Kind.HOST, host);
+                }
+
+            } else if (matcher instanceof PathMatcher) {
+                PathMatcher pathMatcher = (PathMatcher) matcher;
+                String path = exactText(pathMatcher.getPattern());
+                if (path != null) {
+                    return new Locator(Kind.PATH, path);
+                }
+                String prefix = prefixText(pathMatcher.getPattern());
+                String segment = prefix != null ? firstSegment(prefix) : null;
+                if (segment != null) {
+                    return new Locator(Kind.SEGMENT, segment);
+                }
+
+            } else if (matcher instanceof PathTemplateMatcher) {
+                PathTemplateMatcher templateMatcher = (PathTemplateMatcher) matcher;
+                return new Locator(Kind.TEMPLATE, templateMatcher.getTemplate(), templateMatcher.getLiteralSegments());
+            }
+            return null;
+        }
+
+        /**
+         * @return the host of an URL prefix, only if it's complete (followed by a port or path)
+         */
+        private static String host(String prefix) {
+            if (prefix == null) {
+                return null;
+            }
+            int start = prefix.indexOf("://");
+            if (start < 0) {
+                return null;
+            }
+            start += 3;
+            int end = prefix.indexOf('/', start);
+            if (end < 0) {
+                return null;
+            }
+            String authority = prefix.substring(start, end);
+            if (authority.indexOf('@') >= 0 || authority.indexOf('[') >= 0) {
+                return null;
+            }
+            int port = authority.indexOf(':');
+            return port >= 0 ? authority.substring(0, port) : authority;
+        }
+
+    }
+
+    private static final class Bucket {
+        private final Map<Kind, Map<String, Entries>> keyed = new ConcurrentHashMap<>();
+        private final TrieNode templates = new TrieNode();
+        private final Entries unkeyed = new Entries();
+
+        void add(Locator locator, Entry entry) {
+            if (locator == null) {
+                unkeyed.add(entry);
+                return;
+            }
+            if (locator.kind == Kind.TEMPLATE) {
+                templates.add(locator.segments, entry);
+                return;
+            }
+            Map<String, Entries> byKey = keyed.get(locator.kind);
+            if (byKey == null) {
+                keyed.put(locator.kind, byKey = new ConcurrentHashMap<>());
+            }
+            Entries list = byKey.get(locator.key);
+            if (list == null) {
+                byKey.put(locator.key, list = new Entries());
+            }
+            list.add(entry);
+        }
+
+        void collect(RequestView view, List<Entries> lists) {
+            for (Map.Entry<Kind, Map<String, Entries>> e : keyed.entrySet()) {
+                String key;
+                switch (e.getKey()) {
+                    case URL:
+                        key = view.url();
+                        break;
+                    case PATH:
+                        key = view.path();
+                        break;
+                    case HOST:
+                        key = view.request().url().host();
+                        break;
+                    default:
+                        key = firstSegment(view.path());
+                        break;
+                }
+                Entries list = key != null ? e.getValue().get(key) : null;
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+            templates.collect(view.pathSegments(), 0, lists);
+            if (unkeyed.size() > 0) {
+                lists.add(unkeyed);
+            }
+        }
+
+    }
+
+    /**
+     * A node of the segment trie of path templates: its children are keyed by literal segments,
+     * plus a single child for a variable segment
+     */
+    private static final class TrieNode {
+        private final Map<String, TrieNode> literals = new ConcurrentHashMap<>();
+        private volatile TrieNode variable;
+        private volatile Entries entries;
+
+        /**
+         * @param segments the segments of the template, {@code null} for its variables
+         */
+        void add(List<String> segments, Entry entry) {
+            TrieNode node = this;
+            for (String segment : segments) {
+                TrieNode child;
+                if (segment == null) {
+                    child = node.variable;
+                    if (child == null) {
+                        node.variable = child = new TrieNode();
+                    }
+
+                } else {
+                    child = node.literals.get(segment);
+                    if (child == null) {
+                        node.literals.put(segment, child = new TrieNode());
+                    }
+                }
+                node = child;
+            }
+            Entries entries = node.entries;
+            if (entries == null) {
+                node.entries = entries = new Entries();
+            }
+            entries.add(entry);
+        }
+
+        void collect(List<String> path, int index, List<Entries> lists) {
+            if (index == path.size()) {
+                Entries entries = this.entries;
+                if (entries != null) {
+                    lists.add(entries);
+                }
+                return;
+            }
+            String segment = path.get(index);
+            TrieNode literal = literals.get(segment);
+            if (literal != null) {
+                literal.collect(path, index + 1, lists);
+            }
+            TrieNode variable = this.variable;
+            if (variable != null && !segment.isEmpty()) {
+                variable.collect(path, index + 1, lists);
+            }
+        }
+
+    }
+
+    private static final class Entry {
+        private final long seq;
+        private final Rule rule;
+
+        Entry(long seq, Rule rule) {
+            this.seq = seq;
+            this.rule = rule;
+        }
+
+    }
+
+    /**
+     * An append-only list, safe to be read while a single writer appends to it
+     */
+    private static final class Entries {
+        private volatile Entry[] elements = new Entry[4];
+        private volatile int size;
+
+        void add(Entry entry) {
+            Entry[] elements = this.elements;
+            if (size == elements.length) {
+                Entry[] grown = new Entry[size * 2];
+                System.arraycopy(elements, 0, grown, 0, size);
+                this.elements = elements = grown;
+            }
+            elements[size] = entry;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @param index an index lower than a previously read {@link #size()}
+         */
+        Entry get(int index) {
+            return elements[index];
+        }
+
+    }
+
+    /**
+     * Merges several registration-ordered lists of entries into a single registration-ordered iteration
+     */
+    private static final class MergeIterator implements Iterator<Rule> {
+        private final List<Entries> lists;
+        private final int[] positions;
+        private final int[] sizes;
+
+        MergeIterator(List<Entries> lists) {
+            this.lists = lists;
+            this.positions = new int[lists.size()];
+            this.sizes = new int[lists.size()];
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = lists.get(i).size();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] < sizes[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Rule next() {
+            int next = -1;
+            long nextSeq = Long.MAX_VALUE;
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] < sizes[i]) {
+                    long seq = lists.get(i).get(positions[i]).seq;
+                    if (seq < nextSeq) {
+                        next = i;
+                        nextSeq = seq;
+                    }
+                }
+            }
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            return lists.get(next).get(positions[next]++).rule;
+        }
+
+    }
+
+}
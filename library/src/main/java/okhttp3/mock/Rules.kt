@@ -3,6 +3,7 @@
 
 package okhttp3.mock
 
+import java.io.File
 import java.io.InputStream
 import java.util.regex.Pattern
 import okhttp3.MediaType
@@ -10,8 +11,11 @@ import okhttp3.Request
 import okhttp3.Response
 import okhttp3.ResponseBody.Companion.asResponseBody
 import okhttp3.ResponseBody.Companion.toResponseBody
+import okhttp3.mock.matchers.BodyBytesMatcher
+import okhttp3.mock.matchers.BodyDigestMatcher
 import okhttp3.mock.matchers.BodyMatcher
 import okhttp3.mock.matchers.HeaderMatcher
+import okhttp3.mock.matchers.JsonBodyMatcher
 import okhttp3.mock.matchers.Matcher
 import okhttp3.mock.matchers.MatcherHelper.any
 import okhttp3.mock.matchers.MatcherHelper.exact
@@ -21,10 +25,14 @@ import okhttp3.mock.matchers.MethodMatcher
 import okhttp3.mock.matchers.NotMatcher
 import okhttp3.mock.matchers.OrMatcher
 import okhttp3.mock.matchers.PathMatcher
+import okhttp3.mock.matchers.PathTemplateMatcher
+import okhttp3.mock.matchers.PathVariables
 import okhttp3.mock.matchers.QueryParamMatcher
 import okhttp3.mock.matchers.URLMatcher
-import okio.Buffer
 import okio.BufferedSource
+import okio.ByteString
+import okio.buffer
+import okio.source
 
 public object url
 public object path
@@ -32,6 +40,7 @@ public object body
 
 public data class param(val name: String)
 public data class header(val name: String)
+public data class jsonPath(val path: String)
 
 public val get: MethodMatcher = method(HttpMethod.GET)
 public val head: MethodMatcher = method(HttpMethod.HEAD)
@@ -50,6 +59,7 @@ public fun body(value: String): BodyMatcher = body eq value
 public fun not(matcher: Matcher): NotMatcher = NotMatcher(matcher)
 public fun has(param: param): QueryParamMatcher = param(param.name) matches any
 public fun has(header: header): HeaderMatcher = header(header.name) matches any
+public fun has(jsonPath: jsonPath): JsonBodyMatcher = JsonBodyMatcher(jsonPath.path)
 
 public infix fun Matcher.or(matcher: Matcher): OrMatcher = OrMatcher(this, matcher)
 
@@ -64,15 +74,24 @@ public infix fun path.startWith(path: String): PathMatcher = matches(prefix(path
 public infix fun path.endsWith(path: String): PathMatcher = matches(suffix(path))
 public infix fun path.matches(pattern: Pattern): PathMatcher = PathMatcher(pattern)
 public infix fun path.matches(regex: Regex): PathMatcher = matches(regex.toPattern())
+public infix fun path.template(template: String): PathTemplateMatcher = PathTemplateMatcher(template)
 
 public infix fun body.eq(body: String): BodyMatcher = matches(exact(body))
 public infix fun body.matches(pattern: Pattern): BodyMatcher = BodyMatcher(pattern)
 public infix fun body.matches(regex: Regex): BodyMatcher = matches(regex.toPattern())
+public infix fun body.eq(body: ByteString): BodyBytesMatcher = BodyBytesMatcher(BodyBytesMatcher.Mode.EQUALS, body)
+public infix fun body.startWith(body: ByteString): BodyBytesMatcher = BodyBytesMatcher(BodyBytesMatcher.Mode.STARTS_WITH, body)
+public infix fun body.contains(body: ByteString): BodyBytesMatcher = BodyBytesMatcher(BodyBytesMatcher.Mode.CONTAINS, body)
+public fun body.digest(algorithm: BodyDigestMatcher.Algorithm, digest: ByteString): BodyDigestMatcher = BodyDigestMatcher(algorithm, digest)
+public fun body.digestOf(algorithm: BodyDigestMatcher.Algorithm, content: ByteArray): BodyDigestMatcher = BodyDigestMatcher.of(algorithm, content)
+public fun body.digestOf(algorithm: BodyDigestMatcher.Algorithm, content: File): BodyDigestMatcher = BodyDigestMatcher.of(algorithm, content)
 
 public infix fun header.eq(value: String): HeaderMatcher = matches(exact(value))
 public infix fun header.matches(pattern: Pattern): HeaderMatcher = HeaderMatcher(name, pattern)
 public infix fun header.matches(regex: Regex): HeaderMatcher = matches(regex.toPattern())
 
+public infix fun jsonPath.eq(value: Any?): JsonBodyMatcher = JsonBodyMatcher(path, value)
+
 public infix fun param.eq(value: String): QueryParamMatcher = matches(exact(value))
 public infix fun param.matches(pattern: Pattern): QueryParamMatcher = QueryParamMatcher(name, pattern)
 public infix fun param.matches(regex: Regex): QueryParamMatcher = matches(regex.toPattern())
@@ -101,7 +120,13 @@ public fun Response.Builder.body(content: BufferedSource, contentLength: Long =
     body(content.asResponseBody(contentType, contentLength))
 
 public fun Response.Builder.body(content: InputStream, contentLength: Long = -1L, contentType: MediaType? = null): Response.Builder =
-    body(Buffer().readFrom(content), contentLength, contentType)
+    body(content.source().buffer(), contentLength, contentType)
+
+public fun Response.Builder.body(content: BodySource, contentType: MediaType? = null): Response.Builder =
+    body(RepeatableBody.of(content, contentType))
+
+public val Request.pathVariables: PathVariables
+    get() = PathVariables.of(this)
 
 private val dummyResponse = object : Response.Builder() {
 
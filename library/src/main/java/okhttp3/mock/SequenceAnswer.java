@@ -0,0 +1,48 @@
+package okhttp3.mock;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An answer responding with each of the given answers in order, one per hit, and then either repeating the last one
+ * or starting over again.
+ * <p>
+ * Concurrent hits claim their position with an atomic cursor, so each answer is used exactly once per round.
+ */
+final class SequenceAnswer implements Rule.ChoiceAnswer {
+    private final List<? extends RuleAnswer> answers;
+    private final boolean cycle;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    SequenceAnswer(List<? extends RuleAnswer> answers) {
+        this(answers, false);
+    }
+
+    /**
+     * @param answers the answers, in order
+     * @param cycle   if the sequence starts over again after its last answer, instead of repeating it
+     */
+    SequenceAnswer(List<? extends RuleAnswer> answers, boolean cycle) {
+        if (answers.isEmpty()) {
+            throw new IllegalArgumentException("Answers can't be empty!");
+        }
+        this.answers = answers;
+        this.cycle = cycle;
+    }
+
+    int size() {
+        return answers.size();
+    }
+
+    @Override
+    public RuleAnswer next() {
+        int size = answers.size();
+        if (cycle) {
+            return answers.get(Math.floorMod(cursor.getAndIncrement(), size));
+        }
+        int last = size - 1;
+        int index = cursor.get() < last ? Math.min(cursor.getAndIncrement(), last) : last;
+        return answers.get(index);
+    }
+
+}
@@ -0,0 +1,346 @@
+package okhttp3.mock;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the requests relayed by a {@link MockInterceptor} ({@link Behavior#RELAYED}) and their real responses
+ * into a {@link Cassette} file, to be replayed later.
+ * <p>
+ * Response bodies are copied while the client reads them, not buffered up front, and an interaction is recorded
+ * only once its body was fully read. Only the first {@link #maxBodySize(long)} bytes of a body are copied: a longer one
+ * is recorded truncated, with a {@link #TRUNCATED_HEADER} header telling its real length.
+ * <p>
+ * Recorded interactions are handed to a background thread through a bounded queue, and written in batches, so the
+ * latency of the calls is not affected: request bodies are serialized by that thread too, and interactions are
+ * dropped if the queue is full.
+ * <p>
+ * The cassette can be replayed once the recorder is closed.
+ * <pre>{@code
+ *  TrafficRecorder recorder = new TrafficRecorder(new File("staging.cassette"));
+ *  interceptor.behavior(Behavior.RELAYED).recorder(recorder);
+ *  ...
+ *  recorder.close();
+ * }</pre>
+ */
+public final class TrafficRecorder implements Closeable {
+
+    /**
+     * The header added to the recorded responses whose body was truncated, with the length of the whole body
+     */
+    public static final String TRUNCATED_HEADER = "X-Mock-Truncated";
+
+    private static final int BATCH_SIZE = 64;
+    private static final Interaction END = new Interaction(null, null, 0, null, null, null);
+
+    private final CassetteWriter writer;
+    private final double sampleRate;
+    private final BlockingQueue<Interaction> queue;
+    private final Thread thread;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long maxBodySize = 1024 * 1024;
+    private volatile IOException error;
+
+    /**
+     * Creates a recorder of all the relayed requests, queueing up to {@code 1024} of them
+     *
+     * @param file the cassette to write
+     * @throws IOException if the cassette can't be created
+     */
+    public TrafficRecorder(File file) throws IOException {
+        this(file, 1, 1024);
+    }
+
+    /**
+     * @param file          the cassette to write
+     * @param sampleRate    the ratio of the relayed requests to record, from {@code 0} to {@code 1}
+     * @param queueCapacity the max number of interactions waiting to be written
+     * @throws IOException if the cassette can't be created
+     */
+    public TrafficRecorder(File file, double sampleRate, int queueCapacity) throws IOException {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1!");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity can't be less than 1!");
+        }
+        this.writer = new CassetteWriter(file);
+        this.sampleRate = sampleRate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.thread = new Thread(this::writeLoop, "okhttp-mock-recorder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Limits the number of bytes recorded of every response body, so large downloads are not held in memory
+     *
+     * @param maxBytes the max size of a recorded body, {@code 1048576} (1MB) by default
+     * @return this instance
+     */
+    public TrafficRecorder maxBodySize(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Max body size can't be less than 0!");
+        }
+        this.maxBodySize = maxBytes;
+        return this;
+    }
+
+    /**
+     * Records the given relayed call, if sampled
+     *
+     * @param request  the request
+     * @param response the real response of the request
+     * @return the response to return to the caller, copying its body while it's read
+     */
+    Response record(Request request, Response response) {
+        if (closed.get() || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return response;
+        }
+        RequestBody requestBody = request.body();
+        if (requestBody != null && (requestBody.isOneShot() || requestBody.isDuplex())) {
+            return response;
+        }
+        ResponseBody body = response.body();
+        if (body == null) {
+            enqueue(new Interaction(request, null, response.code(), response.message(), response.headers(), ByteString.EMPTY));
+            return response;
+        }
+        Interaction pending = new Interaction(request, body, response.code(), response.message(), response.headers(), null);
+        return response.newBuilder()
+            .body(new TeeBody(pending, maxBodySize))
+            .build();
+    }
+
+    private void enqueue(Interaction interaction) {
+        if (closed.get() || !queue.offer(interaction)) {
+            dropped.increment();
+
+        } else if (closed.get() && queue.remove(interaction)) {
+            // offered while closing, maybe after the END mark: taken back unless the writer or close() got it first
+            dropped.increment();
+        }
+    }
+
+    private void writeLoop() {
+        List<Interaction> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (int i = 0; i < batch.size(); i++) {
+                    Interaction interaction = batch.get(i);
+                    if (interaction == END) {
+                        dropped.add(batch.size() - i - 1);
+                        return;
+                    }
+                    if (error == null) {
+                        ByteString requestBody;
+                        try {
+                            requestBody = requestBody(interaction.request);
+
+                        } catch (IOException | RuntimeException e) {
+                            // the request can't be serialized again, but the cassette is still fine
+                            dropped.increment();
+                            continue;
+                        }
+                        try {
+                            writer.write(interaction.request.method(), interaction.request.url().toString(), requestBody,
+                                interaction.code, interaction.message, interaction.headers, interaction.body);
+                            recorded.increment();
+
+                        } catch (IOException e) {
+                            error = e;
+
+                        } catch (RuntimeException e) {
+                            error = new IOException("Failed to record " + interaction.request, e);
+                        }
+                    }
+                    if (error != null) {
+                        dropped.increment();
+                    }
+                }
+                batch.clear();
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Serializes the body of a request, on the writer thread so the caller doesn't pay for it
+     */
+    private static ByteString requestBody(Request request) throws IOException {
+        RequestBody body = request.body();
+        if (body == null) {
+            return null;
+        }
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        return buffer.readByteString();
+    }
+
+    /**
+     * @return the number of interactions written so far
+     */
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    /**
+     * @return the number of interactions not recorded because the queue was full, the cassette failed
+     * or their request body couldn't be read again
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Waits for the queued interactions to be written, and closes the cassette.
+     * Interactions completed after this are not recorded, but counted as dropped.
+     *
+     * @throws IOException if the cassette can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (!queue.offer(END, 10, TimeUnit.MILLISECONDS)) {
+                if (!thread.isAlive()) {
+                    break;
+                }
+            }
+            thread.join();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while closing the recorder", e);
+
+        } finally {
+            // interactions offered while closing, after the END mark
+            Interaction left;
+            while ((left = queue.poll()) != null) {
+                if (left != END) {
+                    dropped.increment();
+                }
+            }
+            writer.close();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private static final class Interaction {
+        private final Request request;
+        private final ResponseBody responseBody;
+        private final int code;
+        private final String message;
+        private final Headers headers;
+        private final ByteString body;
+
+        Interaction(Request request, ResponseBody responseBody, int code, String message, Headers headers, ByteString body) {
+            this.request = request;
+            this.responseBody = responseBody;
+            this.code = code;
+            this.message = message;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        /**
+         * @param body   the recorded body
+         * @param length the length of the whole body, longer than the recorded one if it was truncated
+         */
+        Interaction withBody(ByteString body, long length) {
+            Headers recorded = length > body.size() ? headers.newBuilder().set(TRUNCATED_HEADER, Long.toString(length)).build() : headers;
+            return new Interaction(request, null, code, message, recorded, body);
+        }
+
+    }
+
+    /**
+     * The body of a relayed response, copying what the client reads, up to a max size, and recording it once fully read
+     */
+    private final class TeeBody extends ResponseBody {
+        private final Interaction pending;
+        private final long maxBytes;
+        private BufferedSource source;
+
+        TeeBody(Interaction pending, long maxBytes) {
+            this.pending = pending;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return pending.responseBody.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return pending.responseBody.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(pending.responseBody.source()) {
+                    private final Buffer copy = new Buffer();
+                    private long length;
+                    private boolean done;
+
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        long read = super.read(sink, byteCount);
+                        if (done) {
+                            return read;
+                        }
+                        if (read == -1) {
+                            done = true;
+                            enqueue(pending.withBody(copy.readByteString(), length));
+
+                        } else {
+                            long copied = Math.min(read, maxBytes - copy.size());
+                            if (copied > 0) {
+                                sink.copyTo(copy, sink.size() - read, copied);
+                            }
+                            length += read;
+                        }
+                        return read;
+                    }
+
+                });
+            }
+            return source;
+        }
+
+    }
+
+}
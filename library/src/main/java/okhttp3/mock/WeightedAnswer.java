@@ -0,0 +1,55 @@
+package okhttp3.mock;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An answer responding with one of the given answers per hit, chosen randomly by their weights.
+ * <p>
+ * The choice of every hit is derived from the seed and the position of the hit, claimed with an atomic cursor,
+ * so the same seed always gives the same sequence of answers, and concurrent hits never contend on a shared
+ * {@link java.util.Random}.
+ */
+final class WeightedAnswer implements Rule.ChoiceAnswer {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final RuleAnswer[] answers;
+    private final long[] bounds;
+    private final long seed;
+    private final AtomicLong cursor = new AtomicLong();
+
+    /**
+     * @param answers the answers
+     * @param weights the weight of each answer
+     * @param seed    the seed of the random choices
+     */
+    WeightedAnswer(RuleAnswer[] answers, int[] weights, long seed) {
+        if (answers.length == 0) {
+            throw new IllegalArgumentException("Answers can't be empty!");
+        }
+        this.answers = answers;
+        this.bounds = new long[weights.length];
+        long total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            bounds[i] = total += weights[i];
+        }
+        this.seed = seed;
+    }
+
+    @Override
+    public RuleAnswer next() {
+        long point = Math.floorMod(mix(seed + cursor.getAndIncrement() * GOLDEN_GAMMA), bounds[bounds.length - 1]);
+        int index = Arrays.binarySearch(bounds, point);
+        return answers[index >= 0 ? index + 1 : -index - 1];
+    }
+
+    /**
+     * The SplitMix64 finalizer, spreading consecutive inputs over the whole range
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,127 @@
+package okhttp3.mock.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A simple JSON path as {@code $.user.id}, {@code $.items[0]} or {@code $['a key']}, selecting a single value
+ * of a document read by a {@link JsonReader}.
+ * <p>
+ * It's parsed once, so selecting a value only walks the tokens of the document, skipping the unselected ones.
+ */
+public final class JsonPath {
+    private final String path;
+    private final List<Object> segments;
+
+    public JsonPath(String path) {
+        this.path = path;
+        this.segments = parse(path);
+    }
+
+    /**
+     * @return the segments of the path: {@link String} names and {@link Integer} indexes
+     */
+    private static List<Object> parse(String path) {
+        if (!path.startsWith("$")) {
+            throw new IllegalArgumentException("JSON path must start with '$': " + path);
+        }
+        List<Object> segments = new ArrayList<>();
+        int i = 1;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                int end = i + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                if (end == i + 1) {
+                    throw new IllegalArgumentException("Empty name at " + i + " of JSON path: " + path);
+                }
+                segments.add(path.substring(i + 1, end));
+                i = end;
+
+            } else if (c == '[' && i + 1 < path.length() && (path.charAt(i + 1) == '\'' || path.charAt(i + 1) == '"')) {
+                int end = path.indexOf(path.charAt(i + 1) + "]", i + 2);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated name at " + i + " of JSON path: " + path);
+                }
+                segments.add(path.substring(i + 2, end));
+                i = end + 2;
+
+            } else if (c == '[') {
+                int end = path.indexOf(']', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated index at " + i + " of JSON path: " + path);
+                }
+                int index;
+                try {
+                    index = Integer.parseInt(path.substring(i + 1, end));
+
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid index at " + i + " of JSON path: " + path);
+                }
+                if (index < 0) {
+                    throw new IllegalArgumentException("Negative index at " + i + " of JSON path: " + path);
+                }
+                segments.add(index);
+                i = end + 1;
+
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + c + "' at " + i + " of JSON path: " + path);
+            }
+        }
+        return Collections.unmodifiableList(segments);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Moves the reader to the value at this path, skipping all the others
+     *
+     * @param reader a reader positioned before the root value of a document
+     * @return {@code false} if there is no value at this path
+     * @throws IOException if the document can't be read
+     */
+    public boolean select(JsonReader reader) throws IOException {
+        for (Object segment : segments) {
+            if (segment instanceof String) {
+                if (reader.peek() != JsonReader.Token.BEGIN_OBJECT) {
+                    return false;
+                }
+                reader.beginObject();
+                while (true) {
+                    if (!reader.hasNext()) {
+                        return false;
+                    }
+                    if (segment.equals(reader.nextName())) {
+                        break;
+                    }
+                    reader.skipValue();
+                }
+
+            } else {
+                if (reader.peek() != JsonReader.Token.BEGIN_ARRAY) {
+                    return false;
+                }
+                reader.beginArray();
+                for (int i = (Integer) segment; i > 0 && reader.hasNext(); i--) {
+                    reader.skipValue();
+                }
+                if (!reader.hasNext()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+}
@@ -0,0 +1,452 @@
+package okhttp3.mock.json;
+
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A minimal streaming reader of JSON (RFC 8259) documents, reading its values one token at a time,
+ * so documents of any size can be read without materializing them in memory.
+ * <p>
+ * It also tracks the {@link #position()} of every token in the source, so big values can be skipped
+ * and read later by reopening the source at their position.
+ */
+public final class JsonReader implements Closeable {
+    private static final ByteString STRING_SPECIALS = ByteString.encodeUtf8("\"\\");
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int DANGLING_NAME = 6;
+
+    private final BufferedSource source;
+    private long position;
+    private int[] stack = new int[32];
+    private int depth = 1;
+    private Token peeked;
+
+    public JsonReader(BufferedSource source) {
+        this.source = source;
+        this.stack[0] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * @return the number of bytes consumed from the source: the position of the next token once {@link #peek()}ed
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * @return the type of the next token, without consuming it
+     * @throws IOException if the source can't be read or it's not valid JSON
+     */
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        int scope = stack[depth - 1];
+        int c;
+        switch (scope) {
+            case EMPTY_ARRAY:
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                if (scope == NONEMPTY_ARRAY) {
+                    expect(c, ',');
+                    c = nextNonWhitespace();
+                }
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                break;
+
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = Token.END_OBJECT;
+                }
+                if (scope == NONEMPTY_OBJECT) {
+                    expect(c, ',');
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntaxError("Expected a name");
+                }
+                stack[depth - 1] = DANGLING_NAME;
+                return peeked = Token.NAME;
+
+            case DANGLING_NAME:
+                expect(nextNonWhitespace(), ':');
+                c = nextNonWhitespace();
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                break;
+
+            case EMPTY_DOCUMENT:
+                c = nextNonWhitespace();
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+
+            default:
+                if (!skipWhitespace()) {
+                    return peeked = Token.END_DOCUMENT;
+                }
+                throw syntaxError("Expected the end of the document");
+        }
+
+        switch (c) {
+            case '{':
+                return peeked = Token.BEGIN_OBJECT;
+            case '[':
+                return peeked = Token.BEGIN_ARRAY;
+            case '"':
+                return peeked = Token.STRING;
+            case 't':
+            case 'f':
+                return peeked = Token.BOOLEAN;
+            case 'n':
+                return peeked = Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return peeked = Token.NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * @return {@code true} if the current array or object has more elements
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_ARRAY && token != Token.END_OBJECT && token != Token.END_DOCUMENT;
+    }
+
+    public void beginArray() throws IOException {
+        consume(Token.BEGIN_ARRAY, 1);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        consume(Token.END_ARRAY, 1);
+        depth--;
+    }
+
+    public void beginObject() throws IOException {
+        consume(Token.BEGIN_OBJECT, 1);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        consume(Token.END_OBJECT, 1);
+        depth--;
+    }
+
+    public String nextName() throws IOException {
+        expectPeeked(Token.NAME);
+        peeked = null;
+        return readQuoted();
+    }
+
+    /**
+     * @return the next string value, or the literal of the next number value
+     */
+    public String nextString() throws IOException {
+        Token token = peek();
+        if (token == Token.NUMBER) {
+            peeked = null;
+            return readNumber();
+        }
+        expectPeeked(Token.STRING);
+        peeked = null;
+        return readQuoted();
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expectPeeked(Token.BOOLEAN);
+        peeked = null;
+        if (source.getBuffer().getByte(0) == 't') {
+            readLiteral("true");
+            return true;
+        }
+        readLiteral("false");
+        return false;
+    }
+
+    public void nextNull() throws IOException {
+        expectPeeked(Token.NULL);
+        peeked = null;
+        readLiteral("null");
+    }
+
+    public long nextLong() throws IOException {
+        expectPeeked(Token.NUMBER);
+        peeked = null;
+        String number = readNumber();
+        try {
+            return Long.parseLong(number);
+
+        } catch (NumberFormatException e) {
+            double value = Double.parseDouble(number);
+            if (value != (long) value) {
+                throw syntaxError("Expected a long but was " + number);
+            }
+            return (long) value;
+        }
+    }
+
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if (value != (int) value) {
+            throw syntaxError("Expected an int but was " + value);
+        }
+        return (int) value;
+    }
+
+    public double nextDouble() throws IOException {
+        expectPeeked(Token.NUMBER);
+        peeked = null;
+        return Double.parseDouble(readNumber());
+    }
+
+    /**
+     * Skips the next value, with all its nested ones if it's an array or object, without decoding it.
+     * If the next token is a name, skips it along with its value.
+     */
+    public void skipValue() throws IOException {
+        int level = 0;
+        do {
+            Token token = peek();
+            if (token == Token.NAME) {
+                peeked = null;
+                skipQuoted();
+                token = peek();
+            }
+            switch (token) {
+                case BEGIN_ARRAY:
+                    beginArray();
+                    level++;
+                    break;
+                case BEGIN_OBJECT:
+                    beginObject();
+                    level++;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    level--;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    level--;
+                    break;
+                case STRING:
+                    peeked = null;
+                    skipQuoted();
+                    break;
+                case NUMBER:
+                    nextString();
+                    break;
+                case BOOLEAN:
+                    nextBoolean();
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                default:
+                    throw syntaxError("Expected a value");
+            }
+        } while (level > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = scope;
+    }
+
+    private void consume(Token token, int length) throws IOException {
+        expectPeeked(token);
+        peeked = null;
+        skip(length);
+    }
+
+    private void expectPeeked(Token token) throws IOException {
+        Token actual = peek();
+        if (actual != token) {
+            throw syntaxError("Expected " + token + " but was " + actual);
+        }
+    }
+
+    private void expect(int c, char expected) throws IOException {
+        if (c != expected) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+        skip(1);
+    }
+
+    private void skip(long length) throws IOException {
+        source.skip(length);
+        position += length;
+    }
+
+    /**
+     * @return {@code false} if the end of the source was reached
+     */
+    private boolean skipWhitespace() throws IOException {
+        while (source.request(1)) {
+            byte c = source.getBuffer().getByte(0);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return true;
+            }
+            skip(1);
+        }
+        return false;
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        if (!skipWhitespace()) {
+            throw new EOFException("End of input at byte " + position);
+        }
+        return source.getBuffer().getByte(0) & 0xff;
+    }
+
+    private String readQuoted() throws IOException {
+        skip(1); // the opening quote
+        StringBuilder sb = null;
+        while (true) {
+            long index = source.indexOfElement(STRING_SPECIALS);
+            if (index == -1) {
+                throw new EOFException("Unterminated string at byte " + position);
+            }
+            String chunk = source.readUtf8(index);
+            position += index;
+            if (source.getBuffer().getByte(0) == '"') {
+                skip(1);
+                return sb == null ? chunk : sb.append(chunk).toString();
+            }
+            if (sb == null) {
+                sb = new StringBuilder();
+            }
+            sb.append(chunk);
+            skip(1); // the backslash
+            sb.append(readEscape());
+        }
+    }
+
+    private void skipQuoted() throws IOException {
+        skip(1); // the opening quote
+        while (true) {
+            if (!source.request(1)) {
+                throw new EOFException("Unterminated string at byte " + position);
+            }
+            // only scans what's already buffered, so huge strings are skipped without holding them in memory
+            Buffer buffer = source.getBuffer();
+            long index = buffer.indexOfElement(STRING_SPECIALS);
+            if (index == -1) {
+                skip(buffer.size());
+                continue;
+            }
+            skip(index);
+            if (source.getBuffer().getByte(0) == '"') {
+                skip(1);
+                return;
+            }
+            skip(1); // the backslash
+            readEscape();
+        }
+    }
+
+    private char readEscape() throws IOException {
+        if (!source.request(1)) {
+            throw new EOFException("Unterminated escape sequence at byte " + position);
+        }
+        byte c = source.getBuffer().getByte(0);
+        skip(1);
+        switch (c) {
+            case 'u':
+                if (!source.request(4)) {
+                    throw new EOFException("Unterminated escape sequence at byte " + position);
+                }
+                String hex = source.readUtf8(4);
+                position += 4;
+                try {
+                    return (char) Integer.parseInt(hex, 16);
+
+                } catch (NumberFormatException e) {
+                    throw syntaxError("Invalid escape sequence \\u" + hex);
+                }
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            default:
+                throw syntaxError("Invalid escape sequence \\" + (char) c);
+        }
+    }
+
+    private String readNumber() throws IOException {
+        Buffer number = new Buffer();
+        while (source.request(1)) {
+            byte c = source.getBuffer().getByte(0);
+            if ((c < '0' || c > '9') && c != '-' && c != '+' && c != '.' && c != 'e' && c != 'E') {
+                break;
+            }
+            number.writeByte(c);
+            skip(1);
+        }
+        return number.readUtf8();
+    }
+
+    private void readLiteral(String literal) throws IOException {
+        if (!source.request(literal.length()) || !source.readUtf8(literal.length()).equals(literal)) {
+            throw syntaxError("Expected " + literal);
+        }
+        position += literal.length();
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException(message + " at byte " + position);
+    }
+
+    /**
+     * The type of a JSON token
+     */
+    public enum Token {
+        BEGIN_ARRAY,
+        END_ARRAY,
+        BEGIN_OBJECT,
+        END_OBJECT,
+        NAME,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        END_DOCUMENT
+    }
+
+}
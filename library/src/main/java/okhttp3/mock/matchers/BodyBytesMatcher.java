@@ -0,0 +1,336 @@
+package okhttp3.mock.matchers;
+
+import okhttp3.Request;
+import okio.Buffer;
+import okio.ByteString;
+import okio.Sink;
+import okio.Timeout;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static okhttp3.mock.matchers.MatcherHelper.reason;
+
+/**
+ * Matches the raw bytes of the request body, streaming it instead of reading it whole.
+ * <p>
+ * The body is read only until the result is known: a mismatching byte, the end of an expected prefix
+ * or the first occurrence of an expected content. Bodies sent with a {@code gzip} or {@code deflate}
+ * {@code Content-Encoding} are decoded on the fly, so the expected bytes are the uncompressed ones.
+ * <p>
+ * Reading stops too once {@code maxBytes} (uncompressed) are read, failing the match, so huge uploads
+ * can be checked without exhausting the memory.
+ */
+public class BodyBytesMatcher implements Matcher {
+    private static final Object MATCHED = new Object();
+    private final Mode mode;
+    private final ByteString bytes;
+    private final long maxBytes;
+    private final byte[] expected;
+    private final int[] failures;
+
+    public BodyBytesMatcher(Mode mode, ByteString bytes) {
+        this(mode, bytes, Long.MAX_VALUE);
+    }
+
+    public BodyBytesMatcher(Mode mode, ByteString bytes, long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Max bytes can't be less than 0!");
+        }
+        this.mode = mode;
+        this.bytes = bytes;
+        this.maxBytes = maxBytes;
+        this.expected = bytes.toByteArray();
+        this.failures = mode == Mode.CONTAINS ? failures(expected) : null;
+    }
+
+    /**
+     * The Knuth–Morris–Pratt failure function, so occurrences spanning several chunks are found in a single pass
+     */
+    private static int[] failures(byte[] pattern) {
+        int[] failures = new int[pattern.length];
+        for (int i = 1, k = 0; i < pattern.length; i++) {
+            while (k > 0 && pattern[i] != pattern[k]) {
+                k = failures[k - 1];
+            }
+            if (pattern[i] == pattern[k]) {
+                k++;
+            }
+            failures[i] = k;
+        }
+        return failures;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public ByteString getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public boolean matches(Request request) {
+        return matches(RequestView.of(request));
+    }
+
+    @Override
+    public boolean matches(RequestView view) {
+        return mismatch(view) == null;
+    }
+
+    @Override
+    public String failReason(Request request) {
+        return failReason(RequestView.of(request));
+    }
+
+    @Override
+    public String failReason(RequestView view) {
+        return reason(this.toString(), mismatch(view));
+    }
+
+    /**
+     * @return the reason of the mismatch, or {@code null} if the body matches, streaming the body only once per view
+     */
+    private String mismatch(RequestView view) {
+        Object cached = view.cached(this);
+        if (cached == null) {
+            String mismatch = compare(view);
+            view.cache(this, mismatch != null ? mismatch : MATCHED);
+            return mismatch;
+        }
+        return cached != MATCHED ? (String) cached : null;
+    }
+
+    private String compare(RequestView view) {
+        String encoding = view.request().header("Content-Encoding");
+        Comparison comparison = new Comparison(mode, expected, failures, maxBytes);
+        DecodingSink sink;
+        if (encoding == null || "identity".equalsIgnoreCase(encoding)) {
+            sink = new DecodingSink(comparison, null, false);
+
+        } else if ("gzip".equalsIgnoreCase(encoding)) {
+            sink = new DecodingSink(comparison, new Inflater(true), true);
+
+        } else if ("deflate".equalsIgnoreCase(encoding)) {
+            sink = new DecodingSink(comparison, new Inflater(), false);
+
+        } else {
+            return "unsupported Content-Encoding " + encoding;
+        }
+
+        try {
+            BodyStreams.writeTo(view, sink);
+            sink.close();
+
+        } catch (BodyStreams.Stop stop) {
+            // the result is known before the end of the body
+
+        } catch (IOException e) {
+            return "failed to read body: " + e.getMessage();
+
+        } finally {
+            sink.release();
+        }
+        return comparison.result;
+    }
+
+    @Override
+    public int cost() {
+        return COST_BODY;
+    }
+
+    @Override
+    public String toString() {
+        return "requestBody(" + mode.name().toLowerCase(Locale.US) + ' ' + bytes + (maxBytes != Long.MAX_VALUE ? "; maxBytes=" + maxBytes : "") + ')';
+    }
+
+    public enum Mode {EQUALS, STARTS_WITH, CONTAINS}
+
+    /**
+     * Compares the body as its bytes arrive, deciding as soon as possible.
+     * <p>
+     * Only its position and result are allocated per comparison: the expected bytes and their failure table are
+     * shared by all of them.
+     */
+    private static final class Comparison {
+        private final Mode mode;
+        private final byte[] expected;
+        private final int[] failures;
+        private final long maxBytes;
+        private long count;
+        private int matched;
+        private String result;
+
+        Comparison(Mode mode, byte[] expected, int[] failures, long maxBytes) {
+            this.mode = mode;
+            this.expected = expected;
+            this.failures = failures;
+            this.maxBytes = maxBytes;
+        }
+
+        void accept(byte[] data, int offset, int length) throws BodyStreams.Stop {
+            if (mode != Mode.EQUALS && matched == expected.length) {
+                throw new BodyStreams.Stop(); // empty prefix or content
+            }
+            for (int i = offset; i < offset + length; i++, count++) {
+                if (count >= maxBytes) {
+                    result = "body exceeds the limit of " + maxBytes + " bytes";
+                    throw new BodyStreams.Stop();
+                }
+                byte b = data[i];
+                if (mode == Mode.CONTAINS) {
+                    while (matched > 0 && b != expected[matched]) {
+                        matched = failures[matched - 1];
+                    }
+                    if (b == expected[matched] && ++matched == expected.length) {
+                        throw new BodyStreams.Stop();
+                    }
+
+                } else if (count >= expected.length) {
+                    result = "body is longer than " + expected.length + " bytes";
+                    throw new BodyStreams.Stop();
+
+                } else if (b != expected[(int) count]) {
+                    result = "body differs at byte " + count;
+                    throw new BodyStreams.Stop();
+
+                } else if (++matched == expected.length && mode == Mode.STARTS_WITH) {
+                    throw new BodyStreams.Stop();
+                }
+            }
+        }
+
+        void finish() {
+            if (matched < expected.length) {
+                result = mode == Mode.CONTAINS ?
+                    "not found in a body of " + count + " bytes" :
+                    "body is shorter: " + count + " bytes";
+            }
+        }
+
+    }
+
+    /**
+     * Feeds the written bytes to a {@link Comparison}, inflating them first if they are compressed
+     */
+    private static final class DecodingSink implements Sink {
+        private final Comparison comparison;
+        private final Inflater inflater;
+        private final byte[] input = new byte[8192];
+        private final byte[] output;
+        private Buffer gzipHeader;
+
+        DecodingSink(Comparison comparison, Inflater inflater, boolean gzip) {
+            this.comparison = comparison;
+            this.inflater = inflater;
+            this.output = inflater != null ? new byte[8192] : null;
+            this.gzipHeader = gzip ? new Buffer() : null;
+        }
+
+        @Override
+        public void write(Buffer source, long byteCount) throws IOException {
+            if (gzipHeader != null) {
+                gzipHeader.write(source, byteCount);
+                long length = gzipHeaderLength(gzipHeader);
+                if (length < 0) {
+                    return;
+                }
+                gzipHeader.skip(length);
+                source = gzipHeader;
+                byteCount = gzipHeader.size();
+                gzipHeader = null;
+            }
+            while (byteCount > 0) {
+                int read = source.read(input, 0, (int) Math.min(byteCount, input.length));
+                byteCount -= read;
+                if (inflater == null) {
+                    comparison.accept(input, 0, read);
+
+                } else if (!inflater.finished()) {
+                    inflater.setInput(input, 0, read);
+                    inflate();
+                }
+                // once finished, the rest is the gzip trailer
+            }
+        }
+
+        private void inflate() throws IOException {
+            try {
+                for (int inflated; (inflated = inflater.inflate(output)) > 0; ) {
+                    comparison.accept(output, 0, inflated);
+                }
+                if (inflater.needsDictionary()) {
+                    throw new IOException("deflate dictionaries are not supported");
+                }
+
+            } catch (DataFormatException e) {
+                throw new IOException("invalid compressed body: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * @return the length of the gzip header at the start of the buffer, or {@code -1} if it's still incomplete
+         */
+        private static long gzipHeaderLength(Buffer buffer) throws IOException {
+            if (buffer.size() < 10) {
+                return -1;
+            }
+            if ((buffer.getByte(0) & 0xff) != 0x1f || (buffer.getByte(1) & 0xff) != 0x8b || buffer.getByte(2) != 8) {
+                throw new IOException("not in gzip format");
+            }
+            int flags = buffer.getByte(3);
+            long length = 10;
+            if ((flags & 0x04) != 0) { // FEXTRA
+                if (buffer.size() < length + 2) {
+                    return -1;
+                }
+                length += 2 + ((buffer.getByte(length) & 0xff) | (buffer.getByte(length + 1) & 0xff) << 8);
+            }
+            for (int flag : new int[]{0x08, 0x10}) { // FNAME, FCOMMENT
+                if ((flags & flag) != 0) {
+                    long end = buffer.indexOf((byte) 0, length);
+                    if (end < 0) {
+                        return -1;
+                    }
+                    length = end + 1;
+                }
+            }
+            if ((flags & 0x02) != 0) { // FHCRC
+                length += 2;
+            }
+            return buffer.size() >= length ? length : -1;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (gzipHeader != null || (inflater != null && !inflater.finished())) {
+                throw new IOException("truncated compressed body");
+            }
+            comparison.finish();
+        }
+
+        void release() {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,269 @@
+package okhttp3.mock.matchers;
+
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.ByteString;
+import okio.Sink;
+import okio.Timeout;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+import static okhttp3.mock.matchers.MatcherHelper.reason;
+
+/**
+ * Matches the request body by its digest, hashing it while it's streamed, so bodies of any size are checked
+ * in constant memory.
+ * <p>
+ * The digest of the expected content is computed once, when the matcher is created.
+ * If its length is known too (as when created from a content), bodies of a different known length are rejected
+ * without reading them, and longer ones without reading them whole.
+ * The digest is computed on the body as sent, without decoding its {@code Content-Encoding}.
+ */
+public class BodyDigestMatcher implements Matcher {
+    private static final Object MATCHED = new Object();
+    private final Algorithm algorithm;
+    private final ByteString digest;
+    private final long length;
+
+    /**
+     * @param algorithm the algorithm of the digest
+     * @param digest    the expected digest
+     */
+    public BodyDigestMatcher(Algorithm algorithm, ByteString digest) {
+        this(algorithm, digest, -1);
+    }
+
+    private BodyDigestMatcher(Algorithm algorithm, ByteString digest, long length) {
+        this.algorithm = algorithm;
+        this.digest = digest;
+        this.length = length;
+    }
+
+    /**
+     * Matches bodies with the given content
+     *
+     * @param algorithm the algorithm of the digest
+     * @param content   the expected content
+     * @return the matcher
+     */
+    public static BodyDigestMatcher of(Algorithm algorithm, byte[] content) {
+        Hash hash = algorithm.newHash();
+        hash.update(content, 0, content.length);
+        return new BodyDigestMatcher(algorithm, hash.digest(), content.length);
+    }
+
+    /**
+     * Matches bodies with the content of the given stream, read (and closed) right away
+     *
+     * @param algorithm the algorithm of the digest
+     * @param content   the expected content
+     * @return the matcher
+     * @throws IOException if the content can't be read
+     */
+    public static BodyDigestMatcher of(Algorithm algorithm, InputStream content) throws IOException {
+        Hash hash = algorithm.newHash();
+        long length = 0;
+        try (InputStream input = content) {
+            byte[] buffer = new byte[8192];
+            for (int read; (read = input.read(buffer)) != -1; ) {
+                hash.update(buffer, 0, read);
+                length += read;
+            }
+        }
+        return new BodyDigestMatcher(algorithm, hash.digest(), length);
+    }
+
+    /**
+     * Matches bodies with the content of the given file, read right away
+     *
+     * @param algorithm the algorithm of the digest
+     * @param content   the file with the expected content
+     * @return the matcher
+     * @throws IOException if the file can't be read
+     */
+    public static BodyDigestMatcher of(Algorithm algorithm, File content) throws IOException {
+        return of(algorithm, new FileInputStream(content));
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public ByteString getDigest() {
+        return digest;
+    }
+
+    @Override
+    public boolean matches(Request request) {
+        return matches(RequestView.of(request));
+    }
+
+    @Override
+    public boolean matches(RequestView view) {
+        return mismatch(view) == null;
+    }
+
+    @Override
+    public String failReason(Request request) {
+        return failReason(RequestView.of(request));
+    }
+
+    @Override
+    public String failReason(RequestView view) {
+        return reason(this.toString(), mismatch(view));
+    }
+
+    /**
+     * @return the reason of the mismatch, or {@code null} if the body matches, hashing the body only once per view
+     */
+    private String mismatch(RequestView view) {
+        Object cached = view.cached(this);
+        if (cached == null) {
+            String mismatch = compare(view);
+            view.cache(this, mismatch != null ? mismatch : MATCHED);
+            return mismatch;
+        }
+        return cached != MATCHED ? (String) cached : null;
+    }
+
+    private String compare(RequestView view) {
+        RequestBody body = view.request().body();
+        if (length >= 0 && body != null) {
+            try {
+                long contentLength = body.contentLength();
+                if (contentLength >= 0 && contentLength != length) {
+                    return "body length is " + contentLength + " bytes, not " + length;
+                }
+
+            } catch (IOException e) {
+                return "failed to read body: " + e.getMessage();
+            }
+        }
+        HashingSink sink = new HashingSink(algorithm.newHash(), length);
+        try {
+            BodyStreams.writeTo(view, sink);
+
+        } catch (BodyStreams.Stop stop) {
+            return "body is longer than " + length + " bytes";
+
+        } catch (IOException e) {
+            return "failed to read body: " + e.getMessage();
+        }
+        ByteString actual = sink.hash.digest();
+        return actual.equals(digest) ? null : name(algorithm) + '=' + actual.hex();
+    }
+
+    private static String name(Algorithm algorithm) {
+        return algorithm.name().replace("_", "").toLowerCase(Locale.US);
+    }
+
+    @Override
+    public int cost() {
+        return COST_BODY;
+    }
+
+    @Override
+    public String toString() {
+        return "requestBody(" + name(algorithm) + '=' + digest.hex() + ')';
+    }
+
+    public enum Algorithm {
+        SHA_256,
+        CRC32C;
+
+        Hash newHash() {
+            if (this == CRC32C) {
+                Crc32c crc = new Crc32c();
+                return new Hash() {
+
+                    @Override
+                    public void update(byte[] data, int offset, int length) {
+                        crc.update(data, offset, length);
+                    }
+
+                    @Override
+                    public ByteString digest() {
+                        long value = crc.getValue();
+                        return ByteString.of((byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value);
+                    }
+
+                };
+            }
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return new Hash() {
+
+                    @Override
+                    public void update(byte[] data, int offset, int length) {
+                        digest.update(data, offset, length);
+                    }
+
+                    @Override
+                    public ByteString digest() {
+                        return ByteString.of(digest.digest());
+                    }
+
+                };
+
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not supported", e);
+            }
+        }
+
+    }
+
+    private interface Hash {
+
+        void update(byte[] data, int offset, int length);
+
+        ByteString digest();
+
+    }
+
+    private static final class HashingSink implements Sink {
+        private final Hash hash;
+        private final long maxLength;
+        private final byte[] chunk = new byte[8192];
+        private long length;
+
+        HashingSink(Hash hash, long maxLength) {
+            this.hash = hash;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public void write(Buffer source, long byteCount) throws IOException {
+            length += byteCount;
+            if (maxLength >= 0 && length > maxLength) {
+                throw new BodyStreams.Stop();
+            }
+            while (byteCount > 0) {
+                int read = source.read(chunk, 0, (int) Math.min(byteCount, chunk.length));
+                hash.update(chunk, 0, read);
+                byteCount -= read;
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
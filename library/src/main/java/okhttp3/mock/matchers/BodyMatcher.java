@@ -1,16 +1,11 @@
 package okhttp3.mock.matchers;
 
 import okhttp3.Request;
-import okhttp3.RequestBody;
-import okio.Buffer;
 
-import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.regex.Pattern;
 
-import static okhttp3.mock.Rules.assertThat;
-
 public class BodyMatcher extends PatternMatcher {
     private final Charset charset;
 
@@ -26,20 +21,17 @@ public class BodyMatcher extends PatternMatcher {
 
     @Override
     protected String getText(Request request) {
-        RequestBody body = request.body();
-        assertThat(body != null, () -> "Request" + request + " does not have a body");
-        assert body != null;
-        assertThat(!body.isDuplex(), () -> "duplex bodies can't be matched");
-        assertThat(!body.isOneShot(), () -> "onShoot bodies can't be matched");
-
-        try {
-            Buffer buffer = new Buffer();
-            body.writeTo(buffer);
-            return buffer.readString(charset);
-
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Failed to read body of request: " + request, e);
-        }
+        return getText(RequestView.of(request));
+    }
+
+    @Override
+    protected String getText(RequestView view) {
+        return view.body(charset);
+    }
+
+    @Override
+    public int cost() {
+        return COST_BODY;
     }
 
     @Override
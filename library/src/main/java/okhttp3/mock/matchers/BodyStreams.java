@@ -0,0 +1,62 @@
+package okhttp3.mock.matchers;
+
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.Okio;
+import okio.Sink;
+
+import java.io.IOException;
+
+/**
+ * Helpers for the {@link Matcher}s streaming the request body instead of reading it whole
+ */
+final class BodyStreams {
+
+    /**
+     * Writes the body of the request into the given sink, without closing it.
+     * <p>
+     * If the body was already read for the view by another matcher, it's written from there instead.
+     *
+     * @param view the view of the request
+     * @param sink the sink to write to, which may throw a {@link Stop} to end the writing early
+     * @throws IOException if the body can't be written
+     */
+    static void writeTo(RequestView view, Sink sink) throws IOException {
+        RequestBody body = view.request().body();
+        if (body == null) {
+            throw new IOException("no body");
+        }
+        ByteString read = view.readBody();
+        if (read != null) {
+            Buffer buffer = new Buffer().write(read);
+            sink.write(buffer, buffer.size());
+
+        } else if (body.isDuplex() || body.isOneShot()) {
+            throw new IOException("duplex or one-shot bodies can't be matched");
+
+        } else {
+            BufferedSink buffered = Okio.buffer(sink);
+            body.writeTo(buffered);
+            buffered.flush();
+        }
+    }
+
+    /**
+     * Thrown by a sink to stop writing the body once the result is known, without filling its stack trace
+     */
+    static final class Stop extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+    }
+
+    private BodyStreams() {
+    }
+
+}
@@ -15,7 +15,12 @@ public class HeaderMatcher extends PatternMatcher {
 
     @Override
     protected String getText(Request request) {
-        return request.header(header);
+        return getText(RequestView.of(request));
+    }
+
+    @Override
+    protected String getText(RequestView view) {
+        return view.header(header);
     }
 
     @Override
@@ -0,0 +1,139 @@
+package okhttp3.mock.matchers;
+
+import okhttp3.Request;
+import okhttp3.mock.json.JsonPath;
+import okhttp3.mock.json.JsonReader;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import static okhttp3.mock.matchers.MatcherHelper.reason;
+
+/**
+ * Matches a value of a JSON request body, selected by a simple JSON path as {@code $.user.id}, {@code $.items[0]}
+ * or {@code $['a key']}: either its presence or its equality to a given {@link String}, {@link Number},
+ * {@link Boolean} or {@code null}.
+ * <p>
+ * Unlike a {@link BodyMatcher}, it doesn't depend on the order of the keys nor the whitespaces of the body.
+ * The body is tokenized as a stream, without building a tree of it, and only until the selected value is found.
+ */
+public class JsonBodyMatcher implements Matcher {
+    private static final Object EXISTS = new Object();
+
+    private final JsonPath path;
+    private final Object value;
+    private final BigDecimal number;
+
+    /**
+     * Matches bodies having a value (even {@code null}) at the given path
+     *
+     * @param path the JSON path of the value
+     */
+    public JsonBodyMatcher(String path) {
+        this(path, EXISTS);
+    }
+
+    /**
+     * Matches bodies having the given value at the given path
+     *
+     * @param path  the JSON path of the value
+     * @param value the expected value: a {@link String}, a {@link Number}, a {@link Boolean} or {@code null}
+     */
+    public JsonBodyMatcher(String path, Object value) {
+        if (value != EXISTS && value != null && !(value instanceof String || value instanceof Number || value instanceof Boolean)) {
+            throw new IllegalArgumentException("Value must be a String, a Number, a Boolean or null!");
+        }
+        this.path = new JsonPath(path);
+        this.value = value;
+        this.number = value instanceof Number ? new BigDecimal(value.toString()) : null;
+    }
+
+    public String getPath() {
+        return path.getPath();
+    }
+
+    @Override
+    public boolean matches(Request request) {
+        return matches(RequestView.of(request));
+    }
+
+    @Override
+    public boolean matches(RequestView view) {
+        try {
+            return mismatch(view) == null;
+
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String failReason(Request request) {
+        return failReason(RequestView.of(request));
+    }
+
+    @Override
+    public String failReason(RequestView view) {
+        String actual;
+        try {
+            actual = mismatch(view);
+
+        } catch (IOException e) {
+            actual = "invalid JSON: " + e.getMessage();
+        }
+        return reason(this.toString(), actual);
+    }
+
+    /**
+     * @return a description of the actual value if it's not the expected one, or {@code null} if it is
+     */
+    private String mismatch(RequestView view) throws IOException {
+        if (view.request().body() == null) {
+            return "no body";
+        }
+        JsonReader reader = new JsonReader(new Buffer().write(view.body()));
+        if (!path.select(reader)) {
+            return "missing";
+        }
+        if (value == EXISTS) {
+            return null;
+        }
+        switch (reader.peek()) {
+            case STRING:
+                String string = reader.nextString();
+                return string.equals(value) ? null : '"' + string + '"';
+            case NUMBER:
+                String actual = reader.nextString();
+                try {
+                    return number != null && new BigDecimal(actual).compareTo(number) == 0 ? null : actual;
+
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid number " + actual, e);
+                }
+            case BOOLEAN:
+                boolean bool = reader.nextBoolean();
+                return value instanceof Boolean && (Boolean) value == bool ? null : String.valueOf(bool);
+            case NULL:
+                return value == null ? null : "null";
+            case BEGIN_OBJECT:
+                return "an object";
+            default:
+                return "an array";
+        }
+    }
+
+    @Override
+    public int cost() {
+        return COST_BODY;
+    }
+
+    @Override
+    public String toString() {
+        if (value == EXISTS) {
+            return "jsonPath(" + path + ')';
+        }
+        return "jsonPath(" + path + " == " + (value instanceof String ? '"' + (String) value + '"' : value) + ')';
+    }
+
+}
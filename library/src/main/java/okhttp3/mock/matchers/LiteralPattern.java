@@ -0,0 +1,82 @@
+package okhttp3.mock.matchers;
+
+import java.util.regex.Pattern;
+
+import static okhttp3.mock.matchers.MatcherHelper.exactText;
+import static okhttp3.mock.matchers.MatcherHelper.prefixText;
+import static okhttp3.mock.matchers.MatcherHelper.suffixText;
+
+/**
+ * A plain {@link String} based equivalent of the {@link Pattern}s created by {@link MatcherHelper},
+ * to avoid running the regex engine for them.
+ * <p>
+ * It keeps the exact semantics of the original pattern, including the {@code .*} parts not matching line terminators.
+ */
+final class LiteralPattern {
+    private static final String ANY = ".*";
+
+    private final Kind kind;
+    private final String text;
+
+    private LiteralPattern(Kind kind, String text) {
+        this.kind = kind;
+        this.text = text;
+    }
+
+    /**
+     * @param pattern the pattern to translate
+     * @return the literal equivalent of the given pattern, or {@code null} if it's not a literal one
+     */
+    static LiteralPattern of(Pattern pattern) {
+        if (pattern.flags() == 0 && ANY.equals(pattern.pattern())) {
+            return new LiteralPattern(Kind.ANY, "");
+        }
+        String text = exactText(pattern);
+        if (text != null) {
+            return new LiteralPattern(Kind.EXACT, text);
+        }
+        text = prefixText(pattern);
+        if (text != null) {
+            return new LiteralPattern(Kind.PREFIX, text);
+        }
+        text = suffixText(pattern);
+        if (text != null) {
+            return new LiteralPattern(Kind.SUFFIX, text);
+        }
+        return null;
+    }
+
+    boolean matches(CharSequence input) {
+        String value = input.toString();
+        switch (kind) {
+            case EXACT:
+                return text.equals(value);
+
+            case PREFIX:
+                return value.startsWith(text) && isSingleLine(value, text.length(), value.length());
+
+            case SUFFIX:
+                return value.endsWith(text) && isSingleLine(value, 0, value.length() - text.length());
+
+            default:
+                return isSingleLine(value, 0, value.length());
+        }
+    }
+
+    private static boolean isSingleLine(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            switch (value.charAt(i)) {
+                case '\n':
+                case '\r':
+                case '\u0085':
+                case '\u2028':
+                case '\u2029':
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private enum Kind {EXACT, PREFIX, SUFFIX, ANY}
+
+}
@@ -4,8 +4,60 @@ import okhttp3.Request;
 
 public interface Matcher {
 
+    /**
+     * The {@link #cost()} of checking a plain property of the request, as its method
+     */
+    int COST_PROPERTY = 0;
+
+    /**
+     * The {@link #cost()} of comparing a text of the request (URL, path, header or query parameter) with a literal
+     */
+    int COST_TEXT = 10;
+
+    /**
+     * The {@link #cost()} of evaluating a regular expression, and the default one of any other matcher
+     */
+    int COST_PATTERN = 50;
+
+    /**
+     * The {@link #cost()} of reading the body of the request
+     */
+    int COST_BODY = 100;
+
     boolean matches(Request request);
 
     String failReason(Request request);
 
+    /**
+     * Same as {@link #matches(Request)}, but sharing the values already computed for the request by other matchers
+     *
+     * @param view the view of the request
+     * @return {@code true} if the request matches
+     */
+    default boolean matches(RequestView view) {
+        return matches(view.request());
+    }
+
+    /**
+     * Same as {@link #failReason(Request)}, but sharing the values already computed for the request by other matchers
+     *
+     * @param view the view of the request
+     * @return the reason
+     */
+    default String failReason(RequestView view) {
+        return failReason(view.request());
+    }
+
+    /**
+     * The relative cost of evaluating this matcher, so a {@code Rule} evaluates the cheaper ones first,
+     * and stops at the first one not matching before reaching the most expensive ones, as the ones reading the body.
+     * <p>
+     * It only changes the evaluation order of the matchers of a rule: its result and fail reasons are the same.
+     *
+     * @return the cost, as one of the {@code COST_*} classes
+     */
+    default int cost() {
+        return COST_PATTERN;
+    }
+
 }
@@ -3,9 +3,10 @@ package okhttp3.mock.matchers;
 import java.util.regex.Pattern;
 
 public final class MatcherHelper {
+    private static final Pattern ANY = Pattern.compile(".*");
 
     public static Pattern any() {
-        return Pattern.compile(".*");
+        return ANY;
     }
 
     public static Pattern exact(String text) {
@@ -24,6 +25,55 @@ public final class MatcherHelper {
         return "expected=" + expected + ";actual=" + actual;
     }
 
+    /**
+     * Returns the literal text of a {@link Pattern} created with {@link #exact(String)}
+     *
+     * @param pattern the pattern to inspect
+     * @return the literal text, or {@code null} if the pattern was not created with {@link #exact(String)}
+     */
+    public static String exactText(Pattern pattern) {
+        if (pattern.flags() != 0) {
+            return null;
+        }
+        return unquote(pattern.pattern());
+    }
+
+    /**
+     * Returns the literal text of a {@link Pattern} created with {@link #prefix(String)}
+     *
+     * @param pattern the pattern to inspect
+     * @return the literal prefix, or {@code null} if the pattern was not created with {@link #prefix(String)}
+     */
+    public static String prefixText(Pattern pattern) {
+        String regex = pattern.pattern();
+        if (pattern.flags() != 0 || !regex.startsWith("^") || !regex.endsWith(".*$")) {
+            return null;
+        }
+        return unquote(regex.substring(1, regex.length() - 3));
+    }
+
+    /**
+     * Returns the literal text of a {@link Pattern} created with {@link #suffix(String)}
+     *
+     * @param pattern the pattern to inspect
+     * @return the literal suffix, or {@code null} if the pattern was not created with {@link #suffix(String)}
+     */
+    public static String suffixText(Pattern pattern) {
+        String regex = pattern.pattern();
+        if (pattern.flags() != 0 || !regex.startsWith("^.*") || !regex.endsWith("$")) {
+            return null;
+        }
+        return unquote(regex.substring(3, regex.length() - 1));
+    }
+
+    private static String unquote(String quoted) {
+        if (!quoted.startsWith("\\Q") || !quoted.endsWith("\\E")) {
+            return null;
+        }
+        String text = quoted.substring(2, quoted.length() - 2).replace("\\E\\\\E\\Q", "\\E");
+        return Pattern.quote(text).equals(quoted) ? text : null;
+    }
+
     private MatcherHelper() {
     }
 
@@ -12,6 +12,10 @@ public class MethodMatcher implements Matcher {
         this.method = method;
     }
 
+    public String getMethod() {
+        return method;
+    }
+
     @Override
     public boolean matches(Request request) {
         return method.equalsIgnoreCase(request.method());
@@ -22,6 +26,11 @@ public class MethodMatcher implements Matcher {
         return reason(method, request.method());
     }
 
+    @Override
+    public int cost() {
+        return COST_PROPERTY;
+    }
+
     @Override
     public String toString() {
         return "method(" + method + ")";
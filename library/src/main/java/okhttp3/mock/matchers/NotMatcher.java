@@ -11,12 +11,27 @@ public class NotMatcher implements Matcher {
 
     @Override
     public boolean matches(Request request) {
-        return !matcher.matches(request);
+        return matches(RequestView.of(request));
+    }
+
+    @Override
+    public boolean matches(RequestView view) {
+        return !matcher.matches(view);
     }
 
     @Override
     public String failReason(Request request) {
-        return "not(" + matcher.failReason(request) + ")";
+        return failReason(RequestView.of(request));
+    }
+
+    @Override
+    public String failReason(RequestView view) {
+        return "not(" + matcher.failReason(view) + ")";
+    }
+
+    @Override
+    public int cost() {
+        return matcher.cost();
     }
 
     @Override
@@ -3,6 +3,7 @@ package okhttp3.mock.matchers;
 import okhttp3.Request;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class OrMatcher implements Matcher {
@@ -17,10 +18,19 @@ public class OrMatcher implements Matcher {
         matchers.add(matcher);
     }
 
+    public List<Matcher> getMatchers() {
+        return Collections.unmodifiableList(matchers);
+    }
+
     @Override
     public boolean matches(Request request) {
+        return matches(RequestView.of(request));
+    }
+
+    @Override
+    public boolean matches(RequestView view) {
         for (Matcher matcher : matchers) {
-            if (matcher.matches(request)) {
+            if (matcher.matches(view)) {
                 return true;
             }
         }
@@ -29,6 +39,11 @@ public class OrMatcher implements Matcher {
 
     @Override
     public String failReason(Request request) {
+        return failReason(RequestView.of(request));
+    }
+
+    @Override
+    public String failReason(RequestView view) {
         StringBuilder sb = new StringBuilder("or(");
         boolean first = true;
         for (Matcher matcher : matchers) {
@@ -37,12 +52,24 @@ public class OrMatcher implements Matcher {
             } else {
                 sb.append(", ");
             }
-            sb.append(matcher.failReason(request));
+            sb.append(matcher.failReason(view));
         }
         sb.append(')');
         return sb.toString();
     }
 
+    /**
+     * @return the cost of the most expensive alternative, as all of them are evaluated if none matches
+     */
+    @Override
+    public int cost() {
+        int cost = COST_PROPERTY;
+        for (Matcher matcher : matchers) {
+            cost = Math.max(cost, matcher.cost());
+        }
+        return cost;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("or(");
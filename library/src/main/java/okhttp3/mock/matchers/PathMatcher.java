@@ -12,7 +12,12 @@ public class PathMatcher extends PatternMatcher {
 
     @Override
     protected String getText(Request request) {
-        return request.url().url().getPath();
+        return getText(RequestView.of(request));
+    }
+
+    @Override
+    protected String getText(RequestView view) {
+        return view.path();
     }
 
     @Override
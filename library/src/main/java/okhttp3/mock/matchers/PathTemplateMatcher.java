@@ -0,0 +1,145 @@
+package okhttp3.mock.matchers;
+
+import okhttp3.Request;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static okhttp3.mock.matchers.MatcherHelper.reason;
+
+/**
+ * Matches the path of a request against a template as {@code /users/{id}/orders/{orderId}},
+ * where every {@code {name}} segment matches any non-empty segment, captured as a {@link PathVariables}.
+ * <p>
+ * Paths are compared segment by segment, once decoded, without any regex.
+ */
+public class PathTemplateMatcher implements Matcher {
+    private final String template;
+    private final List<String> segments;
+    private final List<String> variables;
+
+    public PathTemplateMatcher(String template) {
+        if (!template.startsWith("/")) {
+            throw new IllegalArgumentException("Path template must start with '/': " + template);
+        }
+        List<String> segments = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (String segment : template.substring(1).split("/", -1)) {
+            String variable = variable(segment);
+            if (variable != null && (variable.isEmpty() || !names.add(variable))) {
+                throw new IllegalArgumentException("Invalid or duplicated variable '" + segment + "' in path template: " + template);
+            }
+            if (variable == null && (segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0)) {
+                throw new IllegalArgumentException("Variables must be whole segments in path template: " + template);
+            }
+            segments.add(segment);
+            variables.add(variable);
+        }
+        this.template = template;
+        this.segments = Collections.unmodifiableList(segments);
+        this.variables = Collections.unmodifiableList(variables);
+    }
+
+    private static String variable(String segment) {
+        return segment.startsWith("{") && segment.endsWith("}") ? segment.substring(1, segment.length() - 1) : null;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return the segments of the template, with {@code null} for its variables
+     */
+    public List<String> getLiteralSegments() {
+        List<String> literals = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            literals.add(variables.get(i) == null ? segments.get(i) : null);
+        }
+        return literals;
+    }
+
+    @Override
+    public boolean matches(Request request) {
+        return matches(RequestView.of(request));
+    }
+
+    @Override
+    public boolean matches(RequestView view) {
+        return variables(view) != null;
+    }
+
+    /**
+     * @param request the request
+     * @return the variables captured from the path of the given request, or {@code null} if it doesn't match
+     */
+    public PathVariables variables(Request request) {
+        return variables(RequestView.of(request));
+    }
+
+    /**
+     * Captures the variables while matching the path, keeping them on the view for the answer of the rule
+     *
+     * @param view the request
+     * @return the variables captured from the path of the given request, or {@code null} if it doesn't match
+     */
+    public PathVariables variables(RequestView view) {
+        Object cached = view.cached(this);
+        if (cached != null) {
+            return (PathVariables) cached;
+        }
+        List<String> actual = view.pathSegments();
+        if (actual.size() != segments.size()) {
+            return null;
+        }
+        Map<String, String> values = null;
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = actual.get(i);
+            String variable = variables.get(i);
+            if (variable == null) {
+                if (!segment.equals(segments.get(i))) {
+                    return null;
+                }
+
+            } else if (segment.isEmpty()) {
+                return null;
+
+            } else {
+                if (values == null) {
+                    values = new LinkedHashMap<>();
+                }
+                values.put(variable, segment);
+            }
+        }
+        PathVariables captured = values != null ? new PathVariables(values) : PathVariables.EMPTY;
+        view.cache(this, captured);
+        return captured;
+    }
+
+    @Override
+    public String failReason(Request request) {
+        return failReason(RequestView.of(request));
+    }
+
+    @Override
+    public String failReason(RequestView view) {
+        return reason(template, view.path());
+    }
+
+    @Override
+    public int cost() {
+        return COST_TEXT;
+    }
+
+    @Override
+    public String toString() {
+        return "path(" + template + ")";
+    }
+
+}
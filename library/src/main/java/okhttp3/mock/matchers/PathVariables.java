@@ -0,0 +1,55 @@
+package okhttp3.mock.matchers;
+
+import okhttp3.Request;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The variables captured from the path of a request by the {@link PathTemplateMatcher} of the rule answering it
+ * <p>
+ * Example:
+ * <pre>{@code
+ *  interceptor.addRule()
+ *      .pathTemplate("/users/{id}")
+ *      .answer(request -> new Response.Builder()
+ *          .code(200)
+ *          .body(ResponseBody.create("user " + PathVariables.of(request).get("id"), null)));
+ * }</pre>
+ */
+public final class PathVariables {
+    static final PathVariables EMPTY = new PathVariables(Collections.emptyMap());
+
+    private final Map<String, String> values;
+
+    PathVariables(Map<String, String> values) {
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * @param request the request given to a {@code RuleAnswer}
+     * @return the variables captured for the given request, empty if its rule has no path template
+     */
+    public static PathVariables of(Request request) {
+        PathVariables variables = request.tag(PathVariables.class);
+        return variables != null ? variables : EMPTY;
+    }
+
+    /**
+     * @param name the name of the variable
+     * @return its decoded value, or {@code null} if there is no such variable
+     */
+    public String get(String name) {
+        return values.get(name);
+    }
+
+    public Map<String, String> asMap() {
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+
+}
@@ -8,22 +8,50 @@ import static okhttp3.mock.matchers.MatcherHelper.reason;
 
 public abstract class PatternMatcher implements Matcher {
     protected final Pattern pattern;
+    private final LiteralPattern literal;
 
     public PatternMatcher(Pattern pattern) {
         this.pattern = pattern;
+        this.literal = LiteralPattern.of(pattern);
+    }
+
+    public Pattern getPattern() {
+        return pattern;
     }
 
     protected abstract CharSequence getText(Request request);
 
+    protected CharSequence getText(RequestView view) {
+        return getText(view.request());
+    }
+
     @Override
     public boolean matches(Request request) {
-        CharSequence text = getText(request);
-        return text != null && pattern.matcher(text).matches();
+        return matches(RequestView.of(request));
+    }
+
+    @Override
+    public boolean matches(RequestView view) {
+        CharSequence text = getText(view);
+        if (text == null) {
+            return false;
+        }
+        return literal != null ? literal.matches(text) : pattern.matcher(text).matches();
+    }
+
+    @Override
+    public int cost() {
+        return literal != null ? COST_TEXT : COST_PATTERN;
     }
 
     @Override
     public String failReason(Request request) {
-        CharSequence actual = getText(request);
+        return failReason(RequestView.of(request));
+    }
+
+    @Override
+    public String failReason(RequestView view) {
+        CharSequence actual = getText(view);
         return reason(pattern.pattern(), actual);
     }
 
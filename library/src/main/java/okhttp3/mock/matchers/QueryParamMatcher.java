@@ -15,7 +15,12 @@ public class QueryParamMatcher extends PatternMatcher {
 
     @Override
     protected String getText(Request request) {
-        return request.url().queryParameter(param);
+        return getText(RequestView.of(request));
+    }
+
+    @Override
+    protected String getText(RequestView view) {
+        return view.queryParameter(param);
     }
 
     @Override
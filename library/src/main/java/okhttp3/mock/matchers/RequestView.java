@@ -0,0 +1,186 @@
+package okhttp3.mock.matchers;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.ByteString;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static okhttp3.mock.Rules.assertThat;
+
+/**
+ * A lazily populated view of a {@link Request}, shared by all the {@link Matcher}s evaluated against it.
+ * <p>
+ * Every derived value (URL, path, query parameters, headers and body) is computed at most once per view,
+ * so a large body checked by many rules is only read once.
+ * <p>
+ * A view is meant to be used by the single thread intercepting its request, so it's not thread-safe.
+ */
+public final class RequestView {
+    private final Request request;
+    private String url;
+    private String path;
+    private List<String> pathSegments;
+    private Map<String, String> queryParameters;
+    private Map<String, String> headers;
+    private ByteString body;
+    private Charset bodyTextCharset;
+    private String bodyText;
+    private Map<Matcher, Object> results;
+
+    private RequestView(Request request) {
+        this.request = request;
+    }
+
+    public static RequestView of(Request request) {
+        return new RequestView(request);
+    }
+
+    public Request request() {
+        return request;
+    }
+
+    public String method() {
+        return request.method();
+    }
+
+    public String url() {
+        if (url == null) {
+            url = request.url().toString();
+        }
+        return url;
+    }
+
+    public String path() {
+        if (path == null) {
+            path = request.url().url().getPath();
+        }
+        return path;
+    }
+
+    /**
+     * @return the decoded segments of the path
+     */
+    public List<String> pathSegments() {
+        if (pathSegments == null) {
+            pathSegments = request.url().pathSegments();
+        }
+        return pathSegments;
+    }
+
+    /**
+     * @param name the name of the parameter
+     * @return the first decoded value of the given query parameter, or {@code null} if missing or without value
+     */
+    public String queryParameter(String name) {
+        if (queryParameters == null) {
+            HttpUrl url = request.url();
+            int size = url.querySize();
+            queryParameters = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                String parameter = url.queryParameterName(i);
+                if (!queryParameters.containsKey(parameter)) {
+                    queryParameters.put(parameter, url.queryParameterValue(i));
+                }
+            }
+        }
+        return queryParameters.get(name);
+    }
+
+    /**
+     * @param name the name of the header, case-insensitive
+     * @return the last value of the given header, or {@code null} if missing
+     */
+    public String header(String name) {
+        if (headers == null) {
+            headers = new HashMap<>();
+        }
+        String key = name.toLowerCase(Locale.US);
+        String value = headers.get(key);
+        if (value == null && !headers.containsKey(key)) {
+            value = request.header(name);
+            headers.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return the content of the request body, read only once
+     * @throws IllegalStateException if the request has no body or it can't be read more than once
+     */
+    public ByteString body() {
+        if (body == null) {
+            RequestBody requestBody = request.body();
+            assertThat(requestBody != null, () -> "Request" + request + " does not have a body");
+            assert requestBody != null;
+            assertThat(!requestBody.isDuplex(), () -> "duplex bodies can't be matched");
+            assertThat(!requestBody.isOneShot(), () -> "onShoot bodies can't be matched");
+
+            try {
+                Buffer buffer = new Buffer();
+                requestBody.writeTo(buffer);
+                body = buffer.readByteString();
+
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Failed to read body of request: " + request, e);
+            }
+        }
+        return body;
+    }
+
+    /**
+     * @return the content of the request body if it was already read, or {@code null} if not
+     */
+    ByteString readBody() {
+        return body;
+    }
+
+    /**
+     * @param charset the charset to decode the body with
+     * @return the content of the request body as text, decoded only once per charset
+     */
+    public String body(Charset charset) {
+        if (!charset.equals(bodyTextCharset)) {
+            bodyText = body().string(charset);
+            bodyTextCharset = charset;
+        }
+        return bodyText;
+    }
+
+    /**
+     * @param matcher the matcher
+     * @return the result the given matcher computed for this view, as stored with {@link #cache(Matcher, Object)},
+     * or {@code null} if none
+     */
+    public Object cached(Matcher matcher) {
+        return results != null ? results.get(matcher) : null;
+    }
+
+    /**
+     * Stores a result computed by the given matcher for this view, so checking it again (as to tell its fail reason,
+     * or to answer the request it matched) doesn't read the body again
+     *
+     * @param matcher the matcher
+     * @param result  the result, not {@code null}
+     */
+    public void cache(Matcher matcher, Object result) {
+        if (results == null) {
+            results = new IdentityHashMap<>(4);
+        }
+        results.put(matcher, result);
+    }
+
+    @Override
+    public String toString() {
+        return request.toString();
+    }
+
+}
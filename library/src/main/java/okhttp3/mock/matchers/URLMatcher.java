@@ -12,7 +12,12 @@ public class URLMatcher extends PatternMatcher {
 
     @Override
     protected String getText(Request request) {
-        return request.url().toString();
+        return getText(RequestView.of(request));
+    }
+
+    @Override
+    protected String getText(RequestView view) {
+        return view.url();
     }
 
     @Override
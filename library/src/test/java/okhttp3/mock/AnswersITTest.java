@@ -0,0 +1,160 @@
+package okhttp3.mock;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static okhttp3.mock.HttpCode.HTTP_200_OK;
+import static okhttp3.mock.HttpCode.HTTP_500_INTERNAL_SERVER_ERROR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AnswersITTest {
+    private static final String TEST_URL = "https://testserver/api/status";
+    private static final int HTTP_503_SERVICE_UNAVAILABLE = 503;
+    private MockInterceptor interceptor;
+    private OkHttpClient client;
+
+    @Before
+    public void setup() {
+        client = new OkHttpClient.Builder()
+            .addInterceptor(interceptor = new MockInterceptor(Behavior.UNORDERED))
+            .build();
+    }
+
+    private static RuleAnswer code(int code) {
+        return request -> new Response.Builder().code(code);
+    }
+
+    private int get() throws IOException {
+        try (Response response = client.newCall(new Request.Builder().url(TEST_URL).build()).execute()) {
+            return response.code();
+        }
+    }
+
+    private List<Integer> get(int count) throws IOException {
+        List<Integer> codes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            codes.add(get());
+        }
+        return codes;
+    }
+
+    @Test
+    public void testSequence() throws IOException {
+        interceptor.addRule()
+            .get()
+            .url(TEST_URL)
+            .anyTimes()
+            .answer(Answers.sequence(code(HTTP_200_OK), code(HTTP_503_SERVICE_UNAVAILABLE), code(HTTP_500_INTERNAL_SERVER_ERROR)));
+
+        assertEquals(Arrays.asList(200, 503, 500, 500, 500), get(5));
+        assertEquals(1, interceptor.getRules().size());
+    }
+
+    @Test
+    public void testSequence_Times() throws IOException {
+        interceptor.addRule()
+            .get()
+            .url(TEST_URL)
+            .times(2)
+            .answer(Answers.sequence(code(HTTP_503_SERVICE_UNAVAILABLE), code(HTTP_200_OK)));
+        interceptor.addRule()
+            .get()
+            .url(TEST_URL)
+            .respond(HTTP_500_INTERNAL_SERVER_ERROR);
+
+        assertEquals(Arrays.asList(503, 200, 500), get(3));
+    }
+
+    @Test
+    public void testCycle() throws IOException {
+        interceptor.addRule()
+            .get()
+            .url(TEST_URL)
+            .anyTimes()
+            .answer(Answers.cycle(code(HTTP_200_OK), code(HTTP_200_OK), code(HTTP_503_SERVICE_UNAVAILABLE)));
+
+        assertEquals(Arrays.asList(200, 200, 503, 200, 200, 503, 200), get(7));
+    }
+
+    @Test
+    public void testWeighted() throws IOException {
+        RuleAnswer answer = Answers.weighted(42)
+            .add(9, code(HTTP_200_OK))
+            .add(1, code(HTTP_503_SERVICE_UNAVAILABLE))
+            .build();
+        interceptor.addRule()
+            .get()
+            .url(TEST_URL)
+            .anyTimes()
+            .answer(answer);
+
+        List<Integer> codes = get(1000);
+        int failures = 0;
+        for (int code : codes) {
+            failures += code == HTTP_503_SERVICE_UNAVAILABLE ? 1 : 0;
+        }
+        assertTrue("failures=" + failures, failures > 50 && failures < 150);
+
+        // same seed, same choices
+        interceptor.reset();
+        interceptor.addRule()
+            .get()
+            .url(TEST_URL)
+            .anyTimes()
+            .answer(Answers.weighted(42)
+                .add(9, code(HTTP_200_OK))
+                .add(1, code(HTTP_503_SERVICE_UNAVAILABLE))
+                .build());
+        assertEquals(codes, get(1000));
+
+        interceptor.reset();
+        interceptor.addRule()
+            .get()
+            .url(TEST_URL)
+            .anyTimes()
+            .answer(Answers.weighted(7)
+                .add(9, code(HTTP_200_OK))
+                .add(1, code(HTTP_503_SERVICE_UNAVAILABLE))
+                .build());
+        assertNotEquals(codes, get(1000));
+    }
+
+    @Test
+    public void testNested() throws IOException {
+        interceptor.addRule()
+            .get()
+            .url(TEST_URL)
+            .anyTimes()
+            .answer(Answers.sequence(
+                code(HTTP_503_SERVICE_UNAVAILABLE),
+                Answers.cycle(code(HTTP_200_OK), code(HTTP_500_INTERNAL_SERVER_ERROR))));
+
+        assertEquals(Arrays.asList(503, 200, 500, 200, 500), get(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmpty() {
+        Answers.sequence();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWeighted_Empty() {
+        Answers.weighted(42).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWeighted_InvalidWeight() {
+        Answers.weighted(42).add(0, code(HTTP_200_OK));
+    }
+
+}
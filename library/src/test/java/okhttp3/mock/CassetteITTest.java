@@ -0,0 +1,286 @@
+package okhttp3.mock;
+
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.ByteString;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static okhttp3.mock.MediaTypes.MEDIATYPE_JSON;
+import static okhttp3.mock.MediaTypes.MEDIATYPE_TEXT;
+import static org.junit.Assert.assertEquals;
+
+public class CassetteITTest {
+    private static final String TEST_URL = "https://api.github.com/users/gmazzo";
+    private static final Interceptor BACKEND = chain -> new Response.Builder()
+        .request(chain.request())
+        .protocol(Protocol.HTTP_1_1)
+        .code(200)
+        .message("OK")
+        .header("X-Backend", "real")
+        .body(ResponseBody.create("real " + chain.request().url().encodedPath().substring("/users/gmazzo".length()), MEDIATYPE_TEXT))
+        .build();
+    private MockInterceptor interceptor;
+    private OkHttpClient client;
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        client = new OkHttpClient.Builder()
+            .addInterceptor(interceptor = new MockInterceptor(Behavior.UNORDERED))
+            .build();
+        file = File.createTempFile("test", ".cassette");
+        file.deleteOnExit();
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        try (CassetteWriter writer = new CassetteWriter(file)) {
+            writer.write("GET", TEST_URL, null, 200, "OK",
+                Headers.of("Content-Type", "application/json", "X-Test", "aValue"), ByteString.encodeUtf8("{\"get\":true}"));
+            writer.write("POST", TEST_URL, ByteString.encodeUtf8("{\"id\":1}"), 201, "Created",
+                Headers.of(), ByteString.encodeUtf8("first"));
+            writer.write("POST", TEST_URL, ByteString.encodeUtf8("{\"id\":2}"), 201, "Created",
+                Headers.of(), ByteString.encodeUtf8("second"));
+            writer.write("GET", TEST_URL, null, 200, "OK",
+                Headers.of("Content-Type", "application/json"), ByteString.encodeUtf8("{\"get\":\"latest\"}"));
+        }
+
+        Cassette cassette = Cassette.open(file);
+        assertEquals(4, cassette.size());
+        interceptor.addRule()
+            .anyTimes()
+            .replay(cassette);
+
+        for (int i = 0; i < 2; i++) {
+            Response response = client.newCall(new Request.Builder().url(TEST_URL).get().build()).execute();
+
+            assertEquals(200, response.code());
+            assertEquals("OK", response.message());
+            assertEquals("application/json", response.header("Content-Type"));
+            assertEquals("{\"get\":\"latest\"}", response.body().string());
+        }
+
+        Response response = client.newCall(new Request.Builder()
+                .url(TEST_URL)
+                .post(RequestBody.create("{\"id\":2}", MEDIATYPE_JSON))
+                .build())
+            .execute();
+        assertEquals(201, response.code());
+        assertEquals("second", response.body().string());
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testReplay_NotRecorded() throws IOException {
+        try (CassetteWriter writer = new CassetteWriter(file)) {
+            writer.write("GET", TEST_URL, null, 200, "OK", Headers.of(), ByteString.EMPTY);
+        }
+
+        interceptor.addRule()
+            .anyTimes()
+            .replay(Cassette.open(file));
+
+        client.newCall(new Request.Builder()
+                .url(TEST_URL)
+                .post(RequestBody.create("{}", MEDIATYPE_JSON))
+                .build())
+            .execute();
+    }
+
+    @Test
+    public void testReplay_BodyReadOnce() throws IOException {
+        try (CassetteWriter writer = new CassetteWriter(file)) {
+            writer.write("POST", TEST_URL, ByteString.encodeUtf8("{\"id\":1}"), 201, "Created", Headers.of(), ByteString.encodeUtf8("created"));
+        }
+        AtomicInteger reads = new AtomicInteger();
+        RequestBody body = new RequestBody() {
+
+            @Override
+            public MediaType contentType() {
+                return MEDIATYPE_JSON;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                reads.incrementAndGet();
+                sink.writeUtf8("{\"id\":1}");
+            }
+
+        };
+
+        interceptor.addRule()
+            .replay(Cassette.open(file));
+
+        Response response = client.newCall(new Request.Builder().url(TEST_URL).post(body).build()).execute();
+        assertEquals(201, response.code());
+        assertEquals("created", response.body().string());
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    public void testReplay_Many() throws IOException {
+        try (CassetteWriter writer = new CassetteWriter(file)) {
+            for (int i = 0; i < 10_000; i++) {
+                writer.write("GET", TEST_URL + "/" + i, null, 200, "OK", Headers.of(), ByteString.encodeUtf8("body" + i));
+            }
+        }
+
+        Cassette cassette = Cassette.open(file);
+        interceptor.addRule()
+            .anyTimes()
+            .replay(cassette);
+
+        assertEquals(10_000, cassette.size());
+        for (int i = 0; i < 10_000; i += 997) {
+            Response response = client.newCall(new Request.Builder().url(TEST_URL + "/" + i).get().build()).execute();
+
+            assertEquals("body" + i, response.body().string());
+        }
+    }
+
+    @Test
+    public void testRecordAndReplay() throws IOException {
+        TrafficRecorder recorder = new TrafficRecorder(file);
+        OkHttpClient recording = new OkHttpClient.Builder()
+            .addInterceptor(new MockInterceptor(Behavior.RELAYED).recorder(recorder))
+            .addInterceptor(BACKEND)
+            .build();
+
+        for (String path : new String[]{"/a", "/b", "/c"}) {
+            Response response = recording.newCall(new Request.Builder().url(TEST_URL + path).get().build()).execute();
+
+            assertEquals("real " + path, response.body().string());
+        }
+        // not fully read, so not recorded
+        recording.newCall(new Request.Builder().url(TEST_URL + "/d").get().build()).execute().close();
+        recorder.close();
+
+        assertEquals(3, recorder.getRecorded());
+        assertEquals(0, recorder.getDropped());
+
+        interceptor.addRule()
+            .anyTimes()
+            .replay(Cassette.open(file));
+
+        Response response = client.newCall(new Request.Builder().url(TEST_URL + "/b").get().build()).execute();
+        assertEquals(200, response.code());
+        assertEquals("real", response.header("X-Backend"));
+        assertEquals("real /b", response.body().string());
+    }
+
+    @Test
+    public void testRecord_Sampled() throws IOException {
+        TrafficRecorder recorder = new TrafficRecorder(file, 0, 16);
+        OkHttpClient recording = new OkHttpClient.Builder()
+            .addInterceptor(new MockInterceptor(Behavior.RELAYED).recorder(recorder))
+            .addInterceptor(BACKEND)
+            .build();
+
+        recording.newCall(new Request.Builder().url(TEST_URL).get().build()).execute().body().string();
+        recorder.close();
+
+        assertEquals(0, recorder.getRecorded());
+        assertEquals(0, Cassette.open(file).size());
+    }
+
+    @Test
+    public void testRecord_AfterClose() throws IOException {
+        TrafficRecorder recorder = new TrafficRecorder(file);
+        OkHttpClient recording = new OkHttpClient.Builder()
+            .addInterceptor(new MockInterceptor(Behavior.RELAYED).recorder(recorder))
+            .addInterceptor(BACKEND)
+            .build();
+
+        Response response = recording.newCall(new Request.Builder().url(TEST_URL).get().build()).execute();
+        recorder.close();
+        assertEquals("real ", response.body().string());
+
+        assertEquals(0, recorder.getRecorded());
+        assertEquals(1, recorder.getDropped());
+        assertEquals(0, Cassette.open(file).size());
+    }
+
+    @Test
+    public void testRecord_Truncated() throws IOException {
+        TrafficRecorder recorder = new TrafficRecorder(file).maxBodySize(4);
+        OkHttpClient recording = new OkHttpClient.Builder()
+            .addInterceptor(new MockInterceptor(Behavior.RELAYED).recorder(recorder))
+            .addInterceptor(BACKEND)
+            .build();
+
+        Response response = recording.newCall(new Request.Builder().url(TEST_URL + "/a").get().build()).execute();
+        assertEquals("real /a", response.body().string());
+        recorder.close();
+
+        assertEquals(1, recorder.getRecorded());
+        interceptor.addRule()
+            .replay(Cassette.open(file));
+
+        Response replayed = client.newCall(new Request.Builder().url(TEST_URL + "/a").get().build()).execute();
+        assertEquals("7", replayed.header(TrafficRecorder.TRUNCATED_HEADER));
+        assertEquals("real", replayed.body().string());
+    }
+
+    @Test
+    public void testRecord_RequestBodyNotReadByCaller() throws IOException {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        RequestBody body = new RequestBody() {
+
+            @Override
+            public MediaType contentType() {
+                return MEDIATYPE_JSON;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                threads.add(Thread.currentThread().getName());
+                sink.writeUtf8("{\"id\":1}");
+            }
+
+        };
+        TrafficRecorder recorder = new TrafficRecorder(file);
+        OkHttpClient recording = new OkHttpClient.Builder()
+            .addInterceptor(new MockInterceptor(Behavior.RELAYED).recorder(recorder))
+            .addInterceptor(BACKEND)
+            .build();
+
+        recording.newCall(new Request.Builder().url(TEST_URL).post(body).build()).execute().body().string();
+        recorder.close();
+
+        assertEquals(1, recorder.getRecorded());
+        assertEquals(Collections.singletonList("okhttp-mock-recorder"), threads);
+
+        interceptor.addRule()
+            .replay(Cassette.open(file));
+
+        Response replayed = client.newCall(new Request.Builder().url(TEST_URL)
+            .post(RequestBody.create("{\"id\":1}", MEDIATYPE_JSON)).build()).execute();
+        assertEquals("real ", replayed.body().string());
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpen_NotACassette() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[64]);
+        }
+
+        Cassette.open(file);
+    }
+
+}
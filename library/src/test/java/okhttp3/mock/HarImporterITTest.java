@@ -0,0 +1,146 @@
+package okhttp3.mock;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mock.matchers.RequestView;
+import okio.ByteString;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+
+import static okhttp3.mock.MediaTypes.MEDIATYPE_TEXT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HarImporterITTest {
+    private static final String TEST_URL = "https://api.github.com/users/gmazzo";
+    private MockInterceptor interceptor;
+    private OkHttpClient client;
+
+    @Before
+    public void setup() {
+        client = new OkHttpClient.Builder()
+            .addInterceptor(interceptor = new MockInterceptor(Behavior.UNORDERED))
+            .build();
+    }
+
+    private static File sampleHar() throws URISyntaxException {
+        return new File(HarImporterITTest.class.getClassLoader().getResource("sample.har").toURI());
+    }
+
+    @Test
+    public void testLoad() throws IOException, URISyntaxException {
+        assertEquals(4, HarImporter.load(interceptor, sampleHar()));
+        assertEquals(4, interceptor.getRules().size());
+
+        Response response = client.newCall(new Request.Builder().url(TEST_URL).build()).execute();
+        assertEquals(200, response.code());
+        assertEquals("OK", response.message());
+        assertEquals("application/json", response.header("Content-Type"));
+        assertNull(response.header("Content-Encoding"));
+        assertNull(response.header("Content-Length"));
+        assertEquals("{\"login\":\"first\"}", response.body().string());
+
+        response = client.newCall(new Request.Builder().url(TEST_URL).build()).execute();
+        assertEquals("{\"login\":\"second\"}", response.body().string());
+
+        response = client.newCall(new Request.Builder()
+                .url(TEST_URL)
+                .post(RequestBody.create("anything", MEDIATYPE_TEXT))
+                .build())
+            .execute();
+        assertEquals(201, response.code());
+        assertEquals("Created", response.message());
+        assertEquals("aValue", response.header("X-Test"));
+        assertEquals("created ✓\n", response.body().string());
+
+        response = client.newCall(new Request.Builder().url("https://api.github.com/favicon.ico").build()).execute();
+        assertEquals(ByteString.of((byte) 0, (byte) 1, (byte) 2, (byte) 3), response.body().byteString());
+
+        response = client.newCall(new Request.Builder().url(TEST_URL).delete().build()).execute();
+        assertEquals(204, response.code());
+        assertEquals("", response.body().string());
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testLoad_SequenceConsumed() throws IOException, URISyntaxException {
+        HarImporter.load(interceptor, sampleHar());
+
+        for (int i = 0; i < 3; i++) {
+            client.newCall(new Request.Builder().url(TEST_URL).build()).execute();
+        }
+    }
+
+    @Test
+    public void testLoad_NotCanonicalUrls() throws IOException {
+        File file = File.createTempFile("test", ".har");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(("{\"log\":{\"entries\":[" +
+                "{\"request\":{\"method\":\"GET\",\"url\":\"HTTPS://API.github.com:443/users/gmazzo\"}," +
+                "\"response\":{\"status\":200,\"content\":{\"text\":\"first\"}}}," +
+                "{\"request\":{\"method\":\"GET\",\"url\":\"https://api.github.com/users/gmazzo\"}," +
+                "\"response\":{\"status\":200,\"content\":{\"text\":\"second\"}}}" +
+                "]}}").getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(1, HarImporter.load(interceptor, file));
+
+        for (String expected : new String[]{"first", "second"}) {
+            Response response = client.newCall(new Request.Builder().url(TEST_URL).build()).execute();
+            assertEquals(expected, response.body().string());
+        }
+    }
+
+    @Test
+    public void testLoad_BodyDecodedOnce() throws IOException {
+        File file = File.createTempFile("test", ".har");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(("{\"log\":{\"entries\":[" +
+                "{\"request\":{\"method\":\"GET\",\"url\":\"" + TEST_URL + "\"}," +
+                "\"response\":{\"status\":200,\"content\":{\"text\":\"Zmlyc3Q=\",\"encoding\":\"base64\"}}}" +
+                "]}}").getBytes(StandardCharsets.UTF_8));
+        }
+        HarImporter.load(interceptor, file);
+        // answered directly, as the rule of a single entry is consumed on its first hit
+        Rule rule = interceptor.getRules().get(0);
+        RequestView request = RequestView.of(new Request.Builder().url(TEST_URL).build());
+
+        Response first = rule.answer(request, null, 0);
+        assertEquals("first", first.body().string());
+
+        // not read from the file anymore
+        assertTrue(file.delete());
+        Response second = rule.answer(request, null, 0);
+        assertEquals(5, second.body().contentLength());
+        assertEquals("first", second.body().string());
+    }
+
+    @Test
+    public void testLoad_Invalid() throws IOException {
+        File file = File.createTempFile("test", ".har");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("{\"log\":{\"entries\":[{\"request\":{\"method\":\"GET\"".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try {
+            HarImporter.load(interceptor, file);
+            fail("should have failed");
+
+        } catch (IOException e) {
+            assertEquals(0, interceptor.getRules().size());
+        }
+    }
+
+}
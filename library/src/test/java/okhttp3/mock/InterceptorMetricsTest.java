@@ -0,0 +1,71 @@
+package okhttp3.mock;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class InterceptorMetricsTest {
+
+    @Test
+    public void testHistogram() {
+        InterceptorMetrics metrics = new InterceptorMetrics();
+        for (long nanos = 1; nanos <= 100; nanos++) {
+            metrics.onRelayed(null, 0, nanos);
+        }
+
+        InterceptorMetrics.Histogram latency = metrics.snapshot().getMatchLatency();
+        assertEquals(100, latency.getCount());
+        assertEquals(50, latency.getMean());
+        assertEquals(100, latency.getMax());
+        assertEquals(63, latency.getPercentile(50));
+        assertEquals(100, latency.getPercentile(99));
+        assertEquals(1, latency.getPercentile(0));
+    }
+
+    @Test
+    public void testCounters() {
+        InterceptorMetrics metrics = new InterceptorMetrics();
+        metrics.onRelayed(null, 1, 10);
+        metrics.onUnmatched(null, Behavior.UNORDERED, 1, 10);
+        metrics.onUnmatched(null, Behavior.UNORDERED, 1, 10);
+
+        InterceptorMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.getRelayed());
+        assertEquals(2, snapshot.getUnmatched());
+        assertEquals(0, snapshot.getMatched());
+        assertEquals(0, snapshot.getAnswerLatency().getCount());
+
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().getUnmatched());
+        assertEquals(0, metrics.snapshot().getMatchLatency().getCount());
+    }
+
+    @Test
+    public void testRulesRemoved() {
+        MockInterceptor interceptor = new MockInterceptor();
+        interceptor.addRule().get().respond(200);
+        interceptor.addRule().post().respond(200);
+        Rule first = interceptor.getRules().get(0);
+        Rule second = interceptor.getRules().get(1);
+
+        InterceptorMetrics metrics = new InterceptorMetrics();
+        interceptor.addListener(metrics);
+        metrics.onMatched(null, first, null, Behavior.UNORDERED, 1, 10, 10);
+        metrics.onMatched(null, second, null, Behavior.UNORDERED, 2, 10, 10);
+
+        interceptor.replaceRules(Collections.singletonList(second));
+        assertEquals(Collections.singleton(second), metrics.snapshot().getHits().keySet());
+        assertEquals(1, metrics.snapshot().getHits(second));
+
+        interceptor.reset();
+        assertEquals(0, metrics.snapshot().getHits().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new InterceptorMetrics().snapshot().getMatchLatency().getPercentile(101);
+    }
+
+}
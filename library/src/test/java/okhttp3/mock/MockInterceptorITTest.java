@@ -1,16 +1,37 @@
 package okhttp3.mock;
 
+import okhttp3.Call;
 import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okhttp3.mock.matchers.Matcher;
+import okhttp3.mock.matchers.MethodMatcher;
+import okhttp3.mock.matchers.PathVariables;
+import okio.BufferedSink;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import static okhttp3.mock.ClasspathResources.resource;
@@ -18,6 +39,10 @@ import static okhttp3.mock.HttpCode.HTTP_200_OK;
 import static okhttp3.mock.HttpCode.HTTP_401_UNAUTHORIZED;
 import static okhttp3.mock.MediaTypes.MEDIATYPE_JSON;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class MockInterceptorITTest {
     private static final String TEST_URL = "https://api.github.com/users/gmazzo";
@@ -266,6 +291,695 @@ public class MockInterceptorITTest {
         }
     }
 
+    @Test
+    public void testGetMultipleTimes_ChangedAfterHit() throws IOException {
+        Response.Builder rule = interceptor.addRule()
+            .get(TEST_URL)
+            .anyTimes()
+            .respond(TEST_RESPONSE);
+
+        Response first = client.newCall(new Request.Builder().url(TEST_URL).get().build()).execute();
+        assertEquals(HTTP_200_OK, first.code());
+        assertNull(first.header("X-Changed"));
+
+        rule.code(HTTP_401_UNAUTHORIZED).header("X-Changed", "true");
+
+        Response second = client.newCall(new Request.Builder().url(TEST_URL).get().build()).execute();
+        assertEquals(HTTP_401_UNAUTHORIZED, second.code());
+        assertEquals("true", second.header("X-Changed"));
+        assertEquals(TEST_RESPONSE, second.body().string());
+    }
+
+    @Test
+    public void testFirstRegisteredWins() throws IOException {
+        interceptor.addRule()
+            .pathStarts("/users/")
+            .anyTimes()
+            .respond("first");
+
+        interceptor.addRule()
+            .get(TEST_URL)
+            .anyTimes()
+            .respond("second");
+
+        assertEquals("first", client.newCall(new Request.Builder().url(TEST_URL).get().build())
+            .execute().body().string());
+    }
+
+    @Test
+    public void testIndexedDispatch() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            interceptor.addRule()
+                .get(TEST_URL + i)
+                .respond("user" + i);
+        }
+        interceptor.addRule()
+            .post().or().put()
+            .urlStarts("https://api.github.com/")
+            .anyTimes()
+            .respond("write");
+
+        assertEquals("user42", client.newCall(new Request.Builder().url(TEST_URL + 42).get().build())
+            .execute().body().string());
+        assertEquals("write", client.newCall(new Request.Builder()
+                .url(TEST_URL + 42)
+                .put(RequestBody.create("{}", MEDIATYPE_JSON))
+                .build())
+            .execute().body().string());
+    }
+
+    @Test
+    public void testConcurrentTimes() throws Exception {
+        interceptor.addRule()
+            .get(TEST_URL)
+            .times(3)
+            .answer(request -> new Response.Builder()
+                .code(HTTP_200_OK)
+                .body(ResponseBody.create("limited", null)));
+
+        interceptor.addRule()
+            .get(TEST_URL)
+            .anyTimes()
+            .answer(request -> new Response.Builder()
+                .code(HTTP_200_OK)
+                .body(ResponseBody.create("fallback", null)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> client.newCall(new Request.Builder().url(TEST_URL).get().build())
+                    .execute().body().string()));
+            }
+
+            int limited = 0;
+            for (Future<String> result : results) {
+                if ("limited".equals(result.get())) {
+                    limited++;
+                }
+            }
+            assertEquals(3, limited);
+
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentRepeatableBody() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            sb.append(i).append(',');
+        }
+        String expected = sb.toString();
+
+        interceptor.addRule()
+            .get(TEST_URL)
+            .anyTimes()
+            .respond(expected);
+
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                results.add(executor.submit(() -> client.newCall(new Request.Builder().url(TEST_URL).get().build())
+                    .execute().body().string()));
+            }
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testResponsePrototype() throws IOException {
+        interceptor.addRule()
+            .get(TEST_URL)
+            .anyTimes()
+            .respond(TEST_RESPONSE)
+            .header("Test", "aValue");
+        interceptor.addRule()
+            .post(TEST_URL)
+            .answer(request -> new Response.Builder().code(HTTP_200_OK).body(ResponseBody.create(null, TEST_RESPONSE)));
+
+        for (int i = 0; i < 3; i++) {
+            Request request = new Request.Builder().url(TEST_URL).header("hit", String.valueOf(i)).get().build();
+            Response response = client.newCall(request).execute();
+
+            assertEquals(String.valueOf(i), response.request().header("hit"));
+            assertEquals(Protocol.HTTP_1_1, response.protocol());
+            assertTrue(response.message().startsWith("Rule response"));
+            assertEquals("aValue", response.header("Test"));
+            assertEquals(TEST_RESPONSE, response.body().string());
+        }
+
+        Response response = client.newCall(new Request.Builder()
+                .url(TEST_URL)
+                .post(RequestBody.create("", MEDIATYPE_JSON))
+                .build())
+            .execute();
+
+        assertEquals(Protocol.HTTP_1_1, response.protocol());
+        assertTrue(response.message().startsWith("Rule response"));
+    }
+
+    @Test
+    public void testMetrics() throws IOException {
+        InterceptorMetrics metrics = new InterceptorMetrics();
+        interceptor.addListener(metrics);
+        interceptor.addRule()
+            .get(TEST_URL)
+            .anyTimes()
+            .respond(TEST_RESPONSE);
+        Rule rule = interceptor.getRules().get(0);
+
+        for (int i = 0; i < 3; i++) {
+            client.newCall(new Request.Builder().url(TEST_URL).get().build()).execute().close();
+        }
+        try {
+            client.newCall(new Request.Builder().url(TEST_URL + "/unknown").get().build()).execute();
+
+        } catch (AssertionError ignored) {
+        }
+
+        InterceptorMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(3, snapshot.getHits(rule));
+        assertEquals(3, snapshot.getMatched());
+        assertEquals(1, snapshot.getUnmatched());
+        assertEquals(0, snapshot.getRelayed());
+        assertEquals(4, snapshot.getMatchLatency().getCount());
+        assertEquals(3, snapshot.getAnswerLatency().getCount());
+
+        interceptor.removeListener(metrics);
+        client.newCall(new Request.Builder().url(TEST_URL).get().build()).execute().close();
+        assertEquals(3, metrics.snapshot().getHits(rule));
+    }
+
+    @Test
+    public void testJournal() throws IOException {
+        RequestJournal journal = new RequestJournal(4, true);
+        interceptor.addListener(journal);
+        interceptor.addRule()
+            .get(TEST_URL)
+            .anyTimes()
+            .respond(TEST_RESPONSE);
+        interceptor.addRule()
+            .post(TEST_URL)
+            .anyTimes()
+            .respond(HTTP_401_UNAUTHORIZED);
+        Rule getRule = interceptor.getRules().get(0);
+
+        for (int i = 0; i < 3; i++) {
+            client.newCall(new Request.Builder().url(TEST_URL).get().build()).execute().close();
+        }
+        client.newCall(new Request.Builder()
+                .url(TEST_URL)
+                .post(RequestBody.create("{}", MEDIATYPE_JSON))
+                .build())
+            .execute()
+            .close();
+        try {
+            client.newCall(new Request.Builder().url(TEST_URL + "/unknown").get().build()).execute();
+
+        } catch (AssertionError ignored) {
+        }
+
+        List<RequestJournal.Entry> entries = journal.entries();
+        assertEquals(5, journal.size());
+        assertEquals(4, entries.size());
+        assertEquals(2, journal.count(getRule));
+        assertEquals(1, journal.count(new MethodMatcher("POST")));
+
+        RequestJournal.Entry post = entries.get(2);
+        assertEquals(RequestJournal.Outcome.MATCHED, post.getOutcome());
+        assertEquals(HTTP_401_UNAUTHORIZED, post.getCode());
+        assertEquals("{}", post.getBody().utf8());
+
+        RequestJournal.Entry unknown = entries.get(3);
+        assertEquals(RequestJournal.Outcome.UNMATCHED, unknown.getOutcome());
+        assertEquals(-1, unknown.getCode());
+        assertNull(unknown.getRule());
+
+        journal.clear();
+        assertEquals(0, journal.size());
+        assertTrue(journal.entries().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentJournal() throws Exception {
+        RequestJournal journal = new RequestJournal(1024);
+        interceptor.addListener(journal);
+        interceptor.addRule()
+            .get(TEST_URL)
+            .anyTimes()
+            .respond(TEST_RESPONSE);
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                results.add(executor.submit(() -> {
+                    client.newCall(new Request.Builder().url(TEST_URL).get().build()).execute().close();
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(2000, journal.size());
+        // a request is only dropped if its slot is still being written by one 1024 requests older
+        int kept = journal.entries().size();
+        assertTrue("kept=" + kept + ", dropped=" + journal.dropped(), kept <= 1024 && kept + journal.dropped() >= 1024);
+        for (RequestJournal.Entry entry : journal.entries()) {
+            assertEquals(HTTP_200_OK, entry.getCode());
+            assertEquals(TEST_URL, entry.getRequest().url().toString());
+        }
+    }
+
+    @Test
+    public void testFailureMessage_RulesLimit() throws IOException {
+        interceptor.failureRulesLimit(2);
+        for (int i = 0; i < 5; i++) {
+            interceptor.addRule()
+                .get(TEST_URL + "/" + i)
+                .respond(TEST_RESPONSE);
+        }
+
+        String message = failureMessage(new Request.Builder().url(TEST_URL).get().build());
+
+        assertTrue(message, message.startsWith("Not matched any rule"));
+        assertTrue(message, message.contains("\t2: "));
+        assertFalse(message, message.contains("\t3: "));
+        assertTrue(message, message.contains("(3 more rules)"));
+    }
+
+    @Test
+    public void testFailureMessage_ValueLimit() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            body.append("0123456789");
+        }
+
+        interceptor.behavior(Behavior.SEQUENTIAL).failureValueLimit(100);
+        interceptor.addRule()
+            .post(TEST_URL)
+            .body("expected")
+            .respond(TEST_RESPONSE);
+
+        String message = failureMessage(new Request.Builder()
+            .url(TEST_URL)
+            .post(RequestBody.create(body.toString(), MEDIATYPE_JSON))
+            .build());
+
+        assertTrue(message, message.startsWith("Not matched next rule"));
+        assertTrue(message, message.contains("more chars)"));
+        assertTrue(message, message.length() < 1000);
+    }
+
+    private String failureMessage(Request request) throws IOException {
+        try {
+            client.newCall(request).execute();
+
+        } catch (AssertionError e) {
+            return e.getMessage();
+        }
+        throw new AssertionError("request was matched: " + request);
+    }
+
+    @Test
+    public void testMatcherCost_BodyNotRead() throws IOException {
+        AtomicInteger reads = new AtomicInteger();
+        RequestBody body = new RequestBody() {
+
+            @Override
+            public MediaType contentType() {
+                return MEDIATYPE_JSON;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                reads.incrementAndGet();
+                sink.writeUtf8("content");
+            }
+
+        };
+
+        interceptor.addRule()
+            .body("content")
+            .header("X-Test", "1")
+            .respond("body");
+        interceptor.addRule()
+            .post()
+            .respond(TEST_RESPONSE);
+
+        Response response = client.newCall(new Request.Builder().url(TEST_URL).post(body).build()).execute();
+
+        assertEquals(TEST_RESPONSE, response.body().string());
+        assertEquals(0, reads.get());
+    }
+
+    @Test
+    public void testFailReason_BodyReadOnce() throws IOException {
+        AtomicInteger reads = new AtomicInteger();
+        RequestBody body = new RequestBody() {
+
+            @Override
+            public MediaType contentType() {
+                return MEDIATYPE_JSON;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                reads.incrementAndGet();
+                sink.writeUtf8("other");
+            }
+
+        };
+
+        interceptor.behavior(Behavior.SEQUENTIAL).addRule()
+            .body("content")
+            .respond(TEST_RESPONSE);
+
+        String message = failureMessage(new Request.Builder().url(TEST_URL).post(body).build());
+
+        assertTrue(message, message.startsWith("Not matched next rule"));
+        assertTrue(message, message.contains("actual=other"));
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    public void testMatcherCost_FailReasonOrder() throws IOException {
+        interceptor.addRule()
+            .body("content")
+            .header("X-Test", "1")
+            .respond(TEST_RESPONSE);
+
+        Map<Matcher, String> reasons = interceptor.getRules().get(0).getFailReason(new Request.Builder()
+            .url(TEST_URL)
+            .post(RequestBody.create("other", MEDIATYPE_JSON))
+            .build());
+
+        List<String> matchers = new ArrayList<>();
+        for (Matcher matcher : reasons.keySet()) {
+            matchers.add(matcher.toString());
+        }
+        assertEquals(2, matchers.size());
+        assertTrue(matchers.get(0), matchers.get(0).startsWith("requestBody("));
+        assertTrue(matchers.get(1), matchers.get(1).startsWith("header("));
+    }
+
+    @Test
+    public void testFailureMessage_Serialized() throws IOException, ClassNotFoundException {
+        interceptor.addRule()
+            .get(TEST_URL + "/other")
+            .respond(TEST_RESPONSE);
+
+        AssertionError error = null;
+        try {
+            client.newCall(new Request.Builder().url(TEST_URL).get().build()).execute();
+
+        } catch (AssertionError e) {
+            error = e;
+        }
+        assertTrue(error != null);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(error);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            String message = ((AssertionError) in.readObject()).getMessage();
+
+            assertTrue(message, message.startsWith("Not matched any rule"));
+            assertTrue(message, message.contains(TEST_URL + "/other"));
+        }
+    }
+
+    @Test
+    public void testFailureMessage_StateAtFailure() throws IOException {
+        interceptor.addRule()
+            .get(TEST_URL + "/other")
+            .respond(TEST_RESPONSE);
+
+        AssertionError error = null;
+        try {
+            client.newCall(new Request.Builder().url(TEST_URL).get().build()).execute();
+
+        } catch (AssertionError e) {
+            error = e;
+        }
+        assertTrue(error != null);
+        client.newCall(new Request.Builder().url(TEST_URL + "/other").get().build()).execute();
+
+        String message = error.getMessage();
+        assertTrue(message, message.contains("\t1: "));
+        assertFalse(message, message.contains("Consumed rules"));
+    }
+
+    @Test
+    public void testCompaction_Sequential() throws IOException {
+        interceptor.behavior(Behavior.SEQUENTIAL);
+        for (int i = 0; i < 500; i++) {
+            interceptor.addRule()
+                .get(TEST_URL + "/" + i)
+                .respond(TEST_RESPONSE + i);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            if (i == 250) {
+                interceptor.addRule()
+                    .get(TEST_URL + "/last")
+                    .respond(TEST_RESPONSE);
+            }
+            Response response = client.newCall(new Request.Builder().url(TEST_URL + "/" + i).build()).execute();
+            assertEquals(TEST_RESPONSE + i, response.body().string());
+        }
+        assertEquals(TEST_RESPONSE, client.newCall(new Request.Builder().url(TEST_URL + "/last").build()).execute().body().string());
+
+        List<Rule> rules = interceptor.getRules();
+        assertEquals(501, rules.size());
+        for (Rule rule : rules) {
+            assertTrue(rule.isConsumed());
+        }
+
+        String message = failureMessage(new Request.Builder().url(TEST_URL).get().build());
+        assertTrue(message, message.contains("No remaining rules!"));
+        assertTrue(message, message.contains("Consumed rules: 501"));
+    }
+
+    @Test
+    public void testCompaction_Unordered() throws IOException {
+        interceptor.addRule()
+            .get(TEST_URL + "/any")
+            .anyTimes()
+            .respond(TEST_RESPONSE);
+        for (int i = 0; i < 500; i++) {
+            interceptor.addRule()
+                .get(TEST_URL)
+                .respond(TEST_RESPONSE + i);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            Response response = client.newCall(new Request.Builder().url(TEST_URL).build()).execute();
+            assertEquals(TEST_RESPONSE + i, response.body().string());
+            assertEquals(TEST_RESPONSE, client.newCall(new Request.Builder().url(TEST_URL + "/any").build()).execute().body().string());
+        }
+        assertEquals(501, interceptor.getRules().size());
+
+        String message = failureMessage(new Request.Builder().url(TEST_URL).get().build());
+        assertTrue(message, message.contains("\t1: "));
+        assertFalse(message, message.contains("\t2: "));
+        assertTrue(message, message.contains("Consumed rules: 500"));
+    }
+
+    @Test
+    public void testFileResponse() throws IOException {
+        File file = File.createTempFile("body", ".txt");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(TEST_RESPONSE.getBytes("UTF-8"));
+        }
+
+        interceptor.addRule()
+            .get(TEST_URL + "/file")
+            .anyTimes()
+            .respondStream(FileResources.file(file));
+        interceptor.addRule()
+            .get(TEST_URL + "/mapped")
+            .anyTimes()
+            .respondStream(FileResources.mapped(file));
+
+        for (int i = 0; i < 3; i++) {
+            for (String path : new String[]{"/file", "/mapped"}) {
+                Response response = client.newCall(new Request.Builder().url(TEST_URL + path).get().build()).execute();
+
+                assertEquals(TEST_RESPONSE.length(), response.body().contentLength());
+                assertEquals(TEST_RESPONSE, response.body().string());
+            }
+        }
+    }
+
+    @Test
+    public void testResourceSourceResponse() throws IOException {
+        interceptor.addRule()
+            .anyTimes()
+            .respondStream(ClasspathResources.source("sample.json"), MEDIATYPE_JSON);
+
+        String first = client.newCall(new Request.Builder().url(TEST_URL).get().build()).execute().body().string();
+        String second = client.newCall(new Request.Builder().url(TEST_URL).get().build()).execute().body().string();
+
+        assertTrue(first.contains("\"succeed\": true"));
+        assertEquals(first, second);
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void testDelay_ReadTimeout() throws IOException {
+        interceptor.addRule()
+            .get(TEST_URL)
+            .delay(5000)
+            .respond(TEST_RESPONSE);
+
+        client.newBuilder()
+            .readTimeout(100, TimeUnit.MILLISECONDS)
+            .build()
+            .newCall(new Request.Builder().url(TEST_URL).get().build())
+            .execute();
+    }
+
+    @Test
+    public void testBodyDelay() throws IOException {
+        interceptor.addRule()
+            .get(TEST_URL)
+            .bodyDelay(200)
+            .respond(TEST_RESPONSE);
+
+        long start = System.nanoTime();
+        Response response = client.newCall(new Request.Builder().url(TEST_URL).get().build()).execute();
+
+        assertEquals(TEST_RESPONSE, response.body().string());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    private static void cancelLater(Call call, long delayMillis) {
+        Thread thread = new Thread(() -> {
+            try {
+                Thread.sleep(delayMillis);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            call.cancel();
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Test
+    public void testDelay_Cancel() {
+        interceptor.addRule()
+            .get(TEST_URL)
+            .delay(5000)
+            .respond(TEST_RESPONSE);
+
+        Call call = client.newCall(new Request.Builder().url(TEST_URL).get().build());
+        cancelLater(call, 100);
+
+        long start = System.nanoTime();
+        try {
+            call.execute();
+            fail("the call was not canceled");
+
+        } catch (IOException e) {
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2000));
+        }
+    }
+
+    @Test
+    public void testBodyDelay_Cancel() throws IOException {
+        interceptor.addRule()
+            .get(TEST_URL)
+            .bodyDelay(5000)
+            .respond(TEST_RESPONSE);
+
+        Call call = client.newCall(new Request.Builder().url(TEST_URL).get().build());
+        Response response = call.execute();
+        cancelLater(call, 100);
+
+        long start = System.nanoTime();
+        try {
+            response.body().string();
+            fail("the call was not canceled");
+
+        } catch (IOException e) {
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2000));
+        }
+    }
+
+    @Test
+    public void testPathTemplate() throws IOException {
+        interceptor.addRule()
+            .get()
+            .pathTemplate("/users/{id}/orders/{orderId}")
+            .anyTimes()
+            .answer(request -> new Response.Builder()
+                .code(200)
+                .body(ResponseBody.create("order " + PathVariables.of(request).get("orderId") +
+                    " of " + PathVariables.of(request).get("id"), null)));
+        interceptor.addRule()
+            .get()
+            .pathTemplate("/users/{id}")
+            .anyTimes()
+            .answer(request -> new Response.Builder()
+                .code(200)
+                .body(ResponseBody.create("user " + PathVariables.of(request).asMap(), null)));
+        interceptor.addRule()
+            .get()
+            .pathTemplate("/users/me")
+            .anyTimes()
+            .respond("myself");
+
+        assertEquals("order 42 of gmazzo", client.newCall(new Request.Builder()
+            .url("https://api.github.com/users/gmazzo/orders/42").build()).execute().body().string());
+        assertEquals("user {id=g mazzo}", client.newCall(new Request.Builder()
+            .url("https://api.github.com/users/g%20mazzo").build()).execute().body().string());
+        // first registered wins, as for any other matcher
+        assertEquals("user {id=me}", client.newCall(new Request.Builder()
+            .url("https://api.github.com/users/me").build()).execute().body().string());
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testPathTemplate_EmptyVariable() throws IOException {
+        interceptor.addRule()
+            .pathTemplate("/users/{id}")
+            .respond(TEST_RESPONSE);
+
+        client.newCall(new Request.Builder().url("https://api.github.com/users/").build()).execute();
+    }
+
+    @Test
+    public void testPathTemplate_ManyEndpoints() throws IOException {
+        for (int i = 0; i < 500; i++) {
+            interceptor.addRule()
+                .get()
+                .pathTemplate("/api/resource" + i + "/{id}")
+                .anyTimes()
+                .respond("resource" + i);
+        }
+
+        for (int i = 0; i < 500; i += 50) {
+            assertEquals("resource" + i, client.newCall(new Request.Builder()
+                .url("https://api.github.com/api/resource" + i + "/" + i).build()).execute().body().string());
+        }
+    }
+
     @Test
     public void testPatch() throws IOException {
         final RequestBody body = RequestBody.create(MediaType.parse("application/json"), "{}");
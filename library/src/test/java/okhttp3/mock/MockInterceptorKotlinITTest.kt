@@ -7,6 +7,7 @@ import okhttp3.RequestBody.Companion.toRequestBody
 import okhttp3.ResponseBody.Companion.toResponseBody
 import okhttp3.mock.ClasspathResources.resource
 import okhttp3.mock.MediaTypes.MEDIATYPE_JSON
+import okhttp3.mock.matchers.BodyDigestMatcher
 import org.junit.Assert.assertEquals
 import org.junit.Test
 
@@ -159,6 +160,40 @@ class MockInterceptorKotlinITTest {
 
     }
 
+    @Test
+    fun testRequestBody_JsonPath() {
+        val request1 = """{ "name": "name here", "id": 1 }"""
+        val request2 = """{"id":2}"""
+
+        interceptor.rule(post, url eq TEST_URL, jsonPath("$.id") eq 1, has(jsonPath("$.name")), times = anyTimes) {
+            respond("it`s request 1!".toResponseBody(MEDIATYPE_JSON))
+        }
+        interceptor.rule(post, url eq TEST_URL, jsonPath("$.id") eq 2, times = anyTimes) {
+            respond("it`s request 2!".toResponseBody(MEDIATYPE_JSON))
+        }
+
+        val response1 =
+            client.newCall(Request.Builder().url(TEST_URL).post(request1.toRequestBody(MEDIATYPE_JSON)).build())
+                .execute()
+        assertEquals("it`s request 1!", response1.body!!.string())
+
+        val response2 =
+            client.newCall(Request.Builder().url(TEST_URL).post(request2.toRequestBody(MEDIATYPE_JSON)).build())
+                .execute()
+        assertEquals("it`s request 2!", response2.body!!.string())
+    }
+
+    @Test
+    fun testRequestBody_Digest() {
+        interceptor.rule(post, url eq TEST_URL, body.digestOf(BodyDigestMatcher.Algorithm.SHA_256, "content".toByteArray())) {
+            respond(TEST_RESPONSE)
+        }
+
+        val response = client.newCall(Request.Builder().url(TEST_URL).post("content".toRequestBody(MEDIATYPE_JSON)).build())
+            .execute()
+        assertEquals(TEST_RESPONSE, response.body!!.string())
+    }
+
     @Test(expected = AssertionError::class)
     fun testRequestBody_Fail() {
         val json = """{ "id": 1, "name": "name here" }"""
@@ -207,6 +242,43 @@ class MockInterceptorKotlinITTest {
         }
     }
 
+    @Test
+    fun testAnswer_DefaultCode() {
+        interceptor.rule(get) {
+            respond { body("Path was " + it.url.encodedPath) }
+        }
+
+        val response = client.newCall(
+            Request.Builder()
+                .url(TEST_URL)
+                .get()
+                .build()
+        )
+            .execute()
+
+        assertEquals(HttpCode.HTTP_200_OK, response.code)
+        assertEquals("Path was /users/gmazzo", response.body!!.string())
+    }
+
+    @Test
+    fun testStreamResponse() {
+        interceptor.rule(get, times = anyTimes) { respondStream(ClasspathResources.source("sample.json"), MEDIATYPE_JSON) }
+
+        for (i in 0..1) {
+            val body = client.newCall(
+                Request.Builder()
+                    .url(TEST_URL)
+                    .get()
+                    .build()
+            )
+                .execute()
+                .body!!
+                .string()
+
+            assertEquals(resource("sample.json").reader().readText(), body)
+        }
+    }
+
     @Test(expected = IllegalStateException::class)
     fun testThrowingException() {
         interceptor.rule(get) {
@@ -0,0 +1,186 @@
+package okhttp3.mock;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static okhttp3.mock.HttpCode.HTTP_200_OK;
+import static okhttp3.mock.MediaTypes.MEDIATYPE_JSON;
+import static okhttp3.mock.MediaTypes.MEDIATYPE_TEXT;
+import static org.junit.Assert.assertEquals;
+
+public class ResponseTemplateITTest {
+    private MockInterceptor interceptor;
+    private OkHttpClient client;
+
+    @Before
+    public void setup() {
+        client = new OkHttpClient.Builder()
+            .addInterceptor(interceptor = new MockInterceptor(Behavior.UNORDERED))
+            .build();
+    }
+
+    @Test
+    public void testPathQueryAndHeaders() throws IOException {
+        interceptor.addRule()
+            .get()
+            .pathTemplate("/users/{id}")
+            .anyTimes()
+            .respondTemplate("{\"id\":\"{{path.id}}\",\"page\":{{ query.page }},\"trace\":\"{{header.X-Trace}}\"}", MEDIATYPE_JSON)
+            .header("Location", "/users/{{path.id}}")
+            .header("X-Static", "aValue");
+
+        for (String id : new String[]{"1", "2"}) {
+            Response response = client.newCall(new Request.Builder()
+                .url("https://testserver/users/" + id + "?page=" + id)
+                .header("X-Trace", "trace" + id)
+                .build()).execute();
+
+            assertEquals(HTTP_200_OK, response.code());
+            assertEquals("/users/" + id, response.header("Location"));
+            assertEquals("aValue", response.header("X-Static"));
+            assertEquals(MEDIATYPE_JSON, response.body().contentType());
+            assertEquals("{\"id\":\"" + id + "\",\"page\":" + id + ",\"trace\":\"trace" + id + "\"}", response.body().string());
+        }
+    }
+
+    @Test
+    public void testJsonBody() throws IOException {
+        interceptor.addRule()
+            .post()
+            .respondTemplate(201, "name={{json.$.user.name}};tags={{json.$.user.tags}};age={{json.$.user.age}};missing={{json.$.other}}", MEDIATYPE_TEXT);
+
+        Response response = client.newCall(new Request.Builder()
+            .url("https://testserver/users")
+            .post(RequestBody.create("{\"user\": {\"tags\": [\"a\", {\"b\": 1}], \"name\": \"John \\\"Doe\\\"\", \"age\": 42}}", MEDIATYPE_JSON))
+            .build()).execute();
+
+        assertEquals(201, response.code());
+        assertEquals("name=John \\\"Doe\\\";tags=[\"a\", {\"b\": 1}];age=42;missing=", response.body().string());
+    }
+
+    @Test
+    public void testJsonBody_Escaped() throws IOException {
+        interceptor.addRule()
+            .post()
+            .pathTemplate("/users/{id}")
+            .respondTemplate("{\"id\":\"{{path.id}}\",\"q\":\"{{query.q}}\",\"trace\":\"{{header.X-Trace}}\",\"name\":\"{{json.$.name}}\"}", MEDIATYPE_JSON)
+            .header("X-Trace", "{{header.X-Trace}}");
+
+        Response response = client.newCall(new Request.Builder()
+            .url("https://testserver/users/a%22b?q=c%5Cd%0Ae")
+            .header("X-Trace", "say \"hi\"")
+            .post(RequestBody.create("{\"name\": \"John \\\"Doe\\\"\\n\"}", MEDIATYPE_JSON))
+            .build()).execute();
+
+        assertEquals("say \"hi\"", response.header("X-Trace"));
+        assertEquals("{\"id\":\"a\\\"b\",\"q\":\"c\\\\d\\ne\",\"trace\":\"say \\\"hi\\\"\",\"name\":\"John \\\"Doe\\\"\\n\"}",
+            response.body().string());
+    }
+
+    @Test
+    public void testJsonBody_ReadOnce() throws IOException {
+        AtomicInteger reads = new AtomicInteger();
+        RequestBody body = new RequestBody() {
+
+            @Override
+            public MediaType contentType() {
+                return MEDIATYPE_JSON;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                reads.incrementAndGet();
+                sink.writeUtf8("{\"name\": \"John\"}");
+            }
+
+        };
+
+        interceptor.addRule()
+            .post()
+            .bodyMatches(Pattern.compile(".*John.*"))
+            .respondTemplate("name={{json.$.name}}", MEDIATYPE_TEXT);
+
+        Response response = client.newCall(new Request.Builder()
+            .url("https://testserver/users")
+            .post(body)
+            .build()).execute();
+
+        assertEquals("name=John", response.body().string());
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    public void testNotJsonBody() throws IOException {
+        interceptor.addRule()
+            .post()
+            .respondTemplate("value={{json.$.a}}", MEDIATYPE_TEXT);
+
+        Response response = client.newCall(new Request.Builder()
+            .url("https://testserver/")
+            .post(RequestBody.create("not json", MEDIATYPE_TEXT))
+            .build()).execute();
+
+        assertEquals("value=", response.body().string());
+    }
+
+    @Test
+    public void testMissingValues() throws IOException {
+        interceptor.addRule()
+            .get()
+            .respondTemplate("[{{path.id}}|{{query.q}}|{{header.X-Missing}}|{{json.$.a}}]", MEDIATYPE_TEXT);
+
+        Response response = client.newCall(new Request.Builder()
+            .url("https://testserver/")
+            .build()).execute();
+
+        assertEquals("[|||]", response.body().string());
+    }
+
+    @Test
+    public void testStatic() throws IOException {
+        interceptor.addRule()
+            .get()
+            .times(2)
+            .respondTemplate("static {body}", MEDIATYPE_TEXT);
+
+        for (int i = 0; i < 2; i++) {
+            Response response = client.newCall(new Request.Builder()
+                .url("https://testserver/")
+                .build()).execute();
+
+            assertEquals(13, response.body().contentLength());
+            assertEquals("static {body}", response.body().string());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnterminatedPlaceholder() {
+        interceptor.addRule().get().respondTemplate("{{path.id", MEDIATYPE_TEXT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPlaceholder() {
+        interceptor.addRule().get().respondTemplate("{{cookie.id}}", MEDIATYPE_TEXT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingPlaceholderName() {
+        interceptor.addRule().get().respondTemplate("{{query}}", MEDIATYPE_TEXT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidJsonPath() {
+        interceptor.addRule().get().respondTemplate("{{json.user}}", MEDIATYPE_TEXT);
+    }
+
+}
@@ -0,0 +1,163 @@
+package okhttp3.mock;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.function.BooleanSupplier;
+
+import static okhttp3.mock.MediaTypes.MEDIATYPE_JSON;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class RuleFilesITTest {
+    private static final String TEST_URL = "https://api.github.com/users/gmazzo";
+    private MockInterceptor interceptor;
+    private OkHttpClient client;
+    private File dir;
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        client = new OkHttpClient.Builder()
+            .addInterceptor(interceptor = new MockInterceptor(Behavior.UNORDERED))
+            .build();
+        dir = Files.createTempDirectory("rules").toFile();
+        dir.deleteOnExit();
+        file = new File(dir, "rules.json");
+        file.deleteOnExit();
+    }
+
+    private static void write(File file, String content) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private String get(String url) throws IOException {
+        return client.newCall(new Request.Builder().url(url).build()).execute().body().string();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("timeout");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        File bodyFile = new File(dir, "gmazzo.json");
+        bodyFile.deleteOnExit();
+        write(bodyFile, "{\"login\":\"gmazzo\"}");
+        write(file, "[\n" +
+            "  {\n" +
+            "    \"response\": {\"code\": 200, \"headers\": {\"X-Test\": \"aValue\"}, \"contentType\": \"application/json\", \"bodyFile\": \"gmazzo.json\"},\n" +
+            "    \"method\": \"GET\",\n" +
+            "    \"url\": \"" + TEST_URL + "\",\n" +
+            "    \"headers\": {\"Accept\": {\"startsWith\": \"application/\"}},\n" +
+            "    \"times\": \"any\"\n" +
+            "  },\n" +
+            "  {\n" +
+            "    \"method\": \"POST\",\n" +
+            "    \"path\": {\"startsWith\": \"/users/\"},\n" +
+            "    \"params\": {\"page\": {\"matches\": \"\\\\d+\"}},\n" +
+            "    \"body\": {\"matches\": \".*\\\"id\\\".*\"},\n" +
+            "    \"times\": 2,\n" +
+            "    \"response\": {\"code\": 201, \"body\": \"created\"}\n" +
+            "  }\n" +
+            "]");
+
+        assertEquals(2, RuleFiles.load(interceptor, file));
+
+        for (int i = 0; i < 2; i++) {
+            Response response = client.newCall(new Request.Builder()
+                    .url(TEST_URL)
+                    .header("Accept", "application/json")
+                    .build())
+                .execute();
+            assertEquals(200, response.code());
+            assertEquals("aValue", response.header("X-Test"));
+            assertEquals("application/json", response.body().contentType().toString());
+            assertEquals("{\"login\":\"gmazzo\"}", response.body().string());
+        }
+
+        Response response = client.newCall(new Request.Builder()
+                .url(TEST_URL + "?page=2")
+                .post(RequestBody.create("{\"id\":1}", MEDIATYPE_JSON))
+                .build())
+            .execute();
+        assertEquals(201, response.code());
+        assertEquals("created", response.body().string());
+    }
+
+    @Test
+    public void testRead_Invalid() throws IOException {
+        write(file, "[{\"method\": \"GET\", \"unknown\": 1, \"response\": {}}]");
+
+        try {
+            RuleFiles.read(file);
+            fail("should have failed");
+
+        } catch (IOException e) {
+            assertEquals("Invalid rule at byte 1: Unknown property 'unknown'", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLoad_Invalid() throws IOException {
+        write(file, "[{\"url\": \"" + TEST_URL + "\", \"response\": {}}, {\"method\": \"GET\", \"unknown\": 1, \"response\": {}}]");
+
+        try {
+            RuleFiles.load(interceptor, file);
+            fail("should have failed");
+
+        } catch (IOException e) {
+            assertEquals(0, interceptor.getRules().size());
+        }
+    }
+
+    @Test
+    public void testRead_InvalidTimes() throws IOException {
+        write(file, "[{\"url\": \"" + TEST_URL + "\", \"times\": 0, \"response\": {}}]");
+
+        try {
+            RuleFiles.read(file);
+            fail("should have failed");
+
+        } catch (IOException e) {
+            assertEquals("Invalid rule at byte 1: Time can't be less than 1!", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testWatch() throws IOException, InterruptedException {
+        write(file, "[{\"url\": \"" + TEST_URL + "\", \"times\": \"any\", \"response\": {\"body\": \"v1\"}}]");
+
+        try (RuleFileWatcher watcher = RuleFiles.watch(interceptor, file)) {
+            assertEquals(1, watcher.getReloads());
+            assertEquals("v1", get(TEST_URL));
+
+            write(file, "[{\"url\": \"" + TEST_URL + "\", \"times\": \"any\", \"response\": {\"body\": \"v2\"}}]");
+            await(() -> watcher.getReloads() >= 2);
+            assertEquals("v2", get(TEST_URL));
+
+            write(file, "[{\"url\": ");
+            await(() -> watcher.getLastError() != null);
+            assertEquals("v2", get(TEST_URL));
+        }
+        assertEquals(1, interceptor.getRules().size());
+    }
+
+}
@@ -0,0 +1,91 @@
+package okhttp3.mock.json;
+
+import okio.Buffer;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JsonReaderTest {
+
+    private static JsonReader reader(String json) {
+        return new JsonReader(new Buffer().writeUtf8(json));
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        JsonReader reader = reader(" {\"a\": [1, -2.5e1, true, false, null], \"b\" : {\"c\":\"d\\n\\u00e9\\\"\"}, \"e\": {}} ");
+
+        reader.beginObject();
+        assertEquals("a", reader.nextName());
+        reader.beginArray();
+        assertEquals(1, reader.nextInt());
+        assertEquals(-25, reader.nextDouble(), 0);
+        assertTrue(reader.nextBoolean());
+        assertFalse(reader.nextBoolean());
+        assertEquals(JsonReader.Token.NULL, reader.peek());
+        reader.nextNull();
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertEquals("b", reader.nextName());
+        reader.beginObject();
+        assertEquals("c", reader.nextName());
+        assertEquals("d\né\"", reader.nextString());
+        reader.endObject();
+        assertEquals("e", reader.nextName());
+        reader.beginObject();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        reader.endObject();
+        assertEquals(JsonReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void testSkipValue() throws IOException {
+        JsonReader reader = reader("{\"skipped\": {\"a\": [1, {\"b\": \"\\\"}\"}]}, \"kept\": 1}");
+
+        reader.beginObject();
+        reader.skipValue();
+        assertEquals("kept", reader.nextName());
+        assertEquals(1, reader.nextLong());
+        reader.endObject();
+    }
+
+    @Test
+    public void testPosition() throws IOException {
+        String json = "{\"a\": 1, \"text\": \"café\"}";
+        JsonReader reader = reader(json);
+
+        reader.beginObject();
+        reader.skipValue();
+        assertEquals("text", reader.nextName());
+        assertEquals(JsonReader.Token.STRING, reader.peek());
+        long position = reader.position();
+        reader.skipValue();
+
+        Buffer source = new Buffer().writeUtf8(json);
+        source.skip(position);
+        assertEquals("café", new JsonReader(source).nextString());
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformed() throws IOException {
+        JsonReader reader = reader("{\"a\" 1}");
+
+        reader.beginObject();
+        reader.nextName();
+        reader.nextInt();
+    }
+
+    @Test(expected = IOException.class)
+    public void testTrailingContent() throws IOException {
+        JsonReader reader = reader("1 2");
+
+        reader.nextInt();
+        reader.peek();
+    }
+
+}
@@ -0,0 +1,181 @@
+package okhttp3.mock.matchers;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.ByteString;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static okhttp3.mock.MediaTypes.MEDIATYPE_JSON;
+import static okhttp3.mock.MediaTypes.MEDIATYPE_RAW_DATA;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BodyBytesMatcherTest {
+    private static final ByteString CONTENT = ByteString.encodeUtf8("{\"id\":1,\"name\":\"aName\"}");
+
+    private static Request request(ByteString body, String encoding) {
+        Request.Builder builder = new Request.Builder()
+            .url("http://test.com")
+            .post(RequestBody.create(body, MEDIATYPE_JSON));
+        if (encoding != null) {
+            builder.header("Content-Encoding", encoding);
+        }
+        return builder.build();
+    }
+
+    private static ByteString compress(ByteString content, boolean gzip) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes) : new DeflaterOutputStream(bytes)) {
+            content.write(out);
+        }
+        return ByteString.of(bytes.toByteArray());
+    }
+
+    private static boolean matches(BodyBytesMatcher.Mode mode, String expected, Request request) {
+        return new BodyBytesMatcher(mode, ByteString.encodeUtf8(expected)).matches(request);
+    }
+
+    @Test
+    public void testEquals() {
+        Request request = request(CONTENT, null);
+
+        assertTrue(matches(BodyBytesMatcher.Mode.EQUALS, CONTENT.utf8(), request));
+        assertFalse(matches(BodyBytesMatcher.Mode.EQUALS, "{\"id\":1", request));
+        assertFalse(matches(BodyBytesMatcher.Mode.EQUALS, CONTENT.utf8() + " ", request));
+        assertFalse(matches(BodyBytesMatcher.Mode.EQUALS, "", request));
+    }
+
+    @Test
+    public void testStartsWith() {
+        Request request = request(CONTENT, null);
+
+        assertTrue(matches(BodyBytesMatcher.Mode.STARTS_WITH, "{\"id\":1", request));
+        assertTrue(matches(BodyBytesMatcher.Mode.STARTS_WITH, "", request));
+        assertFalse(matches(BodyBytesMatcher.Mode.STARTS_WITH, "{\"id\":2", request));
+        assertFalse(matches(BodyBytesMatcher.Mode.STARTS_WITH, CONTENT.utf8() + " ", request));
+    }
+
+    @Test
+    public void testContains() {
+        Request request = request(CONTENT, null);
+
+        assertTrue(matches(BodyBytesMatcher.Mode.CONTAINS, "\"aName\"", request));
+        assertTrue(matches(BodyBytesMatcher.Mode.CONTAINS, "", request));
+        assertTrue(matches(BodyBytesMatcher.Mode.CONTAINS, "\"}", request));
+        assertFalse(matches(BodyBytesMatcher.Mode.CONTAINS, "\"anotherName\"", request));
+    }
+
+    @Test
+    public void testContains_Overlapping() {
+        Request request = request(ByteString.encodeUtf8("aaab"), null);
+
+        assertTrue(matches(BodyBytesMatcher.Mode.CONTAINS, "aab", request));
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        Request request = request(compress(CONTENT, true), "gzip");
+
+        assertTrue(matches(BodyBytesMatcher.Mode.EQUALS, CONTENT.utf8(), request));
+        assertTrue(matches(BodyBytesMatcher.Mode.CONTAINS, "aName", request));
+        assertFalse(matches(BodyBytesMatcher.Mode.EQUALS, "{}", request));
+    }
+
+    @Test
+    public void testDeflate() throws IOException {
+        Request request = request(compress(CONTENT, false), "deflate");
+
+        assertTrue(matches(BodyBytesMatcher.Mode.EQUALS, CONTENT.utf8(), request));
+        assertTrue(matches(BodyBytesMatcher.Mode.STARTS_WITH, "{\"id\"", request));
+    }
+
+    @Test
+    public void testUnsupportedEncoding() {
+        Request request = request(CONTENT, "br");
+        BodyBytesMatcher matcher = new BodyBytesMatcher(BodyBytesMatcher.Mode.EQUALS, CONTENT);
+
+        assertFalse(matcher.matches(request));
+        assertEquals("expected=" + matcher + ";actual=unsupported Content-Encoding br", matcher.failReason(request));
+    }
+
+    @Test
+    public void testStopsReadingEarly() {
+        AtomicLong written = new AtomicLong();
+        Request request = new Request.Builder()
+            .url("http://test.com")
+            .post(new RequestBody() {
+
+                @Override
+                public MediaType contentType() {
+                    return MEDIATYPE_RAW_DATA;
+                }
+
+                @Override
+                public void writeTo(BufferedSink sink) throws IOException {
+                    byte[] chunk = new byte[8192];
+                    for (int i = 0; i < 100_000; i++) { // ~800MB
+                        sink.write(chunk);
+                        written.addAndGet(chunk.length);
+                    }
+                }
+
+            })
+            .build();
+
+        assertTrue(new BodyBytesMatcher(BodyBytesMatcher.Mode.STARTS_WITH, ByteString.of(new byte[10])).matches(request));
+        assertTrue(written.get() < 1024 * 1024);
+
+        written.set(0);
+        assertFalse(new BodyBytesMatcher(BodyBytesMatcher.Mode.EQUALS, ByteString.of((byte) 1)).matches(request));
+        assertTrue(written.get() < 1024 * 1024);
+    }
+
+    @Test
+    public void testFailReason_NotStreamedAgain() {
+        AtomicInteger reads = new AtomicInteger();
+        RequestView view = RequestView.of(new Request.Builder()
+            .url("http://test.com")
+            .post(new RequestBody() {
+
+                @Override
+                public MediaType contentType() {
+                    return MEDIATYPE_RAW_DATA;
+                }
+
+                @Override
+                public void writeTo(BufferedSink sink) throws IOException {
+                    reads.incrementAndGet();
+                    sink.write(CONTENT);
+                }
+
+            })
+            .build());
+        BodyBytesMatcher matcher = new BodyBytesMatcher(BodyBytesMatcher.Mode.CONTAINS, ByteString.encodeUtf8("other"));
+
+        assertFalse(matcher.matches(view));
+        assertEquals("expected=" + matcher + ";actual=not found in a body of " + CONTENT.size() + " bytes", matcher.failReason(view));
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    public void testMaxBytes() {
+        Request request = request(CONTENT, null);
+        BodyBytesMatcher matcher = new BodyBytesMatcher(BodyBytesMatcher.Mode.CONTAINS, ByteString.encodeUtf8("aName"), 10);
+
+        assertFalse(matcher.matches(request));
+        assertEquals("expected=" + matcher + ";actual=body exceeds the limit of 10 bytes", matcher.failReason(request));
+        assertTrue(new BodyBytesMatcher(BodyBytesMatcher.Mode.CONTAINS, ByteString.encodeUtf8("\"id\""), 10).matches(request));
+    }
+
+}
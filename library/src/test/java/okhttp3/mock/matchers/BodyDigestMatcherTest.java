@@ -0,0 +1,141 @@
+package okhttp3.mock.matchers;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.ByteString;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static okhttp3.mock.MediaTypes.MEDIATYPE_RAW_DATA;
+import static okhttp3.mock.MediaTypes.MEDIATYPE_TEXT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BodyDigestMatcherTest {
+    private static final byte[] CONTENT = "123456789".getBytes(StandardCharsets.UTF_8);
+
+    private static Request request(String body) {
+        return new Request.Builder()
+            .url("http://test.com")
+            .post(RequestBody.create(body, MEDIATYPE_TEXT))
+            .build();
+    }
+
+    @Test
+    public void testDigests() {
+        assertEquals("e3069283", BodyDigestMatcher.of(BodyDigestMatcher.Algorithm.CRC32C, CONTENT).getDigest().hex());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+            BodyDigestMatcher.of(BodyDigestMatcher.Algorithm.SHA_256, "abc".getBytes(StandardCharsets.UTF_8)).getDigest().hex());
+    }
+
+    @Test
+    public void testMatches() throws IOException {
+        for (BodyDigestMatcher.Algorithm algorithm : BodyDigestMatcher.Algorithm.values()) {
+            BodyDigestMatcher matcher = BodyDigestMatcher.of(algorithm, new ByteArrayInputStream(CONTENT));
+
+            assertTrue(matcher.matches(request("123456789")));
+            assertFalse(matcher.matches(request("12345678")));
+            assertFalse(matcher.matches(request("1234567890")));
+            assertFalse(matcher.matches(request("987654321")));
+        }
+    }
+
+    @Test
+    public void testMatches_Digest() {
+        BodyDigestMatcher matcher = new BodyDigestMatcher(BodyDigestMatcher.Algorithm.CRC32C, ByteString.decodeHex("e3069283"));
+
+        assertTrue(matcher.matches(request("123456789")));
+        assertEquals("expected=requestBody(crc32c=e3069283);actual=crc32c=" +
+                BodyDigestMatcher.of(BodyDigestMatcher.Algorithm.CRC32C, "1234567890".getBytes(StandardCharsets.UTF_8)).getDigest().hex(),
+            matcher.failReason(request("1234567890")));
+    }
+
+    @Test
+    public void testMatches_File() throws IOException {
+        File file = File.createTempFile("fixture", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(CONTENT);
+        }
+        BodyDigestMatcher matcher = BodyDigestMatcher.of(BodyDigestMatcher.Algorithm.SHA_256, file);
+
+        assertTrue(matcher.matches(request("123456789")));
+    }
+
+    @Test
+    public void testStopsReadingLongerBodies() {
+        AtomicLong written = new AtomicLong();
+        Request request = new Request.Builder()
+            .url("http://test.com")
+            .post(new RequestBody() {
+
+                @Override
+                public MediaType contentType() {
+                    return MEDIATYPE_RAW_DATA;
+                }
+
+                @Override
+                public void writeTo(BufferedSink sink) throws IOException {
+                    byte[] chunk = new byte[8192];
+                    for (int i = 0; i < 100_000; i++) { // ~800MB
+                        sink.write(chunk);
+                        written.addAndGet(chunk.length);
+                    }
+                }
+
+            })
+            .build();
+        BodyDigestMatcher matcher = BodyDigestMatcher.of(BodyDigestMatcher.Algorithm.SHA_256, CONTENT);
+
+        assertEquals("expected=" + matcher + ";actual=body is longer than 9 bytes", matcher.failReason(request));
+        assertTrue(written.get() < 1024 * 1024);
+    }
+
+    @Test
+    public void testKnownLength_NotRead() {
+        AtomicInteger reads = new AtomicInteger();
+        RequestView view = RequestView.of(new Request.Builder()
+            .url("http://test.com")
+            .post(new RequestBody() {
+
+                @Override
+                public MediaType contentType() {
+                    return MEDIATYPE_RAW_DATA;
+                }
+
+                @Override
+                public long contentLength() {
+                    return 8;
+                }
+
+                @Override
+                public void writeTo(BufferedSink sink) throws IOException {
+                    reads.incrementAndGet();
+                    sink.writeUtf8("12345678");
+                }
+
+            })
+            .build());
+        BodyDigestMatcher matcher = BodyDigestMatcher.of(BodyDigestMatcher.Algorithm.SHA_256, CONTENT);
+
+        assertFalse(matcher.matches(view));
+        assertEquals("expected=" + matcher + ";actual=body length is 8 bytes, not 9", matcher.failReason(view));
+        assertEquals(0, reads.get());
+
+        BodyDigestMatcher other = BodyDigestMatcher.of(BodyDigestMatcher.Algorithm.CRC32C, "87654321".getBytes(StandardCharsets.UTF_8));
+        assertFalse(other.matches(view));
+        other.failReason(view);
+        assertEquals(1, reads.get());
+    }
+
+}
@@ -0,0 +1,128 @@
+package okhttp3.mock.matchers;
+
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.junit.Test;
+
+import static okhttp3.mock.MediaTypes.MEDIATYPE_JSON;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonBodyMatcherTest {
+    private static final String JSON = "{\n" +
+        "  \"items\": [{\"id\": 1}, {\"id\": 2, \"tags\": [\"a\", \"b\"]}],\n" +
+        "  \"user\": {\"name\": \"aName\", \"id\": 10.0, \"admin\": false, \"manager\": null},\n" +
+        "  \"a key\": \"aValue\"\n" +
+        "}";
+
+    private static Request request(String body) {
+        return new Request.Builder()
+            .url("http://test.com")
+            .post(RequestBody.create(body, MEDIATYPE_JSON))
+            .build();
+    }
+
+    private static boolean matches(String path, Object value) {
+        return new JsonBodyMatcher(path, value).matches(request(JSON));
+    }
+
+    private static boolean exists(String path) {
+        return new JsonBodyMatcher(path).matches(request(JSON));
+    }
+
+    @Test
+    public void testExists() {
+        assertTrue(exists("$"));
+        assertTrue(exists("$.user"));
+        assertTrue(exists("$.user.manager"));
+        assertTrue(exists("$.items[1].tags[1]"));
+        assertTrue(exists("$['a key']"));
+        assertFalse(exists("$.user.email"));
+        assertFalse(exists("$.items[2]"));
+        assertFalse(exists("$.items[1].tags[2]"));
+        assertFalse(exists("$.user.name.first"));
+    }
+
+    @Test
+    public void testEquals() {
+        assertTrue(matches("$.user.name", "aName"));
+        assertTrue(matches("$.user.id", 10));
+        assertTrue(matches("$.user.id", 10.0));
+        assertTrue(matches("$.user.admin", false));
+        assertTrue(matches("$.user.manager", null));
+        assertTrue(matches("$.items[0].id", 1L));
+        assertTrue(matches("$.items[1].tags[0]", "a"));
+        assertTrue(matches("$[\"a key\"]", "aValue"));
+        assertFalse(matches("$.user.name", "anotherName"));
+        assertFalse(matches("$.user.id", "10"));
+        assertFalse(matches("$.user.admin", true));
+        assertFalse(matches("$.user", null));
+        assertFalse(matches("$.user.email", null));
+    }
+
+    @Test
+    public void testKeyOrderAndWhitespaces() {
+        JsonBodyMatcher matcher = new JsonBodyMatcher("$.id", 1);
+
+        assertTrue(matcher.matches(request("{\"name\":\"name here\",\"id\":1}")));
+        assertTrue(matcher.matches(request("{ \"id\" : 1 }")));
+    }
+
+    @Test
+    public void testStopsReadingEarly() {
+        assertTrue(new JsonBodyMatcher("$.id", 1).matches(request("{\"id\": 1, \"rest\": [this is not JSON")));
+    }
+
+    @Test
+    public void testFailReason() {
+        assertEquals("expected=jsonPath($.user.name == \"other\");actual=\"aName\"",
+            new JsonBodyMatcher("$.user.name", "other").failReason(request(JSON)));
+        assertEquals("expected=jsonPath($.user.email);actual=missing",
+            new JsonBodyMatcher("$.user.email").failReason(request(JSON)));
+        assertEquals("expected=jsonPath($.user == 1);actual=an object",
+            new JsonBodyMatcher("$.user", 1).failReason(request(JSON)));
+    }
+
+    @Test
+    public void testInvalidJson() {
+        JsonBodyMatcher matcher = new JsonBodyMatcher("$.id", 1);
+
+        assertFalse(matcher.matches(request("{\"id\" 1}")));
+        assertTrue(matcher.failReason(request("{\"id\" 1}")).startsWith("expected=jsonPath($.id == 1);actual=invalid JSON: "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPath() {
+        new JsonBodyMatcher("user.id");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidIndex() {
+        new JsonBodyMatcher("$.items[first]");
+    }
+
+    @Test
+    public void testNegativeIndex() {
+        try {
+            new JsonBodyMatcher("$.items[-1]");
+            fail("should have failed");
+
+        } catch (IllegalArgumentException e) {
+            assertEquals("Negative index at 7 of JSON path: $.items[-1]", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testUnterminatedIndex() {
+        try {
+            new JsonBodyMatcher("$.a[3");
+            fail("should have failed");
+
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unterminated index at 3 of JSON path: $.a[3", e.getMessage());
+        }
+    }
+
+}
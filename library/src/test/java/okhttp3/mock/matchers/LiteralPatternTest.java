@@ -0,0 +1,63 @@
+package okhttp3.mock.matchers;
+
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static okhttp3.mock.matchers.MatcherHelper.any;
+import static okhttp3.mock.matchers.MatcherHelper.exact;
+import static okhttp3.mock.matchers.MatcherHelper.prefix;
+import static okhttp3.mock.matchers.MatcherHelper.suffix;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class LiteralPatternTest {
+    private static final String[] INPUTS = {
+        "", "a", "aText", "aTextb", "baText", "aText\n", "\naText", "aText\nb", "b\naText", "a.Text", "a\\EText",
+        "aText\r\n", "aText\u2028", "https://test.com/a?b=c"};
+
+    private static final String[] LITERALS = {"", "aText", "a.Text", "a\\EText", "https://test.com/a"};
+
+    private static void assertSameAsRegex(Pattern pattern) {
+        LiteralPattern literal = LiteralPattern.of(pattern);
+        assertNotNull(pattern.pattern(), literal);
+
+        for (String input : INPUTS) {
+            assertEquals(pattern.pattern() + " ~= " + input, pattern.matcher(input).matches(), literal.matches(input));
+        }
+    }
+
+    @Test
+    public void testAny() {
+        assertSameAsRegex(any());
+    }
+
+    @Test
+    public void testExact() {
+        for (String literal : LITERALS) {
+            assertSameAsRegex(exact(literal));
+        }
+    }
+
+    @Test
+    public void testPrefix() {
+        for (String literal : LITERALS) {
+            assertSameAsRegex(prefix(literal));
+        }
+    }
+
+    @Test
+    public void testSuffix() {
+        for (String literal : LITERALS) {
+            assertSameAsRegex(suffix(literal));
+        }
+    }
+
+    @Test
+    public void testRegex() {
+        assertNull(LiteralPattern.of(Pattern.compile("/aPath/(\\w+)")));
+        assertNull(LiteralPattern.of(Pattern.compile(".*", Pattern.DOTALL)));
+    }
+
+}
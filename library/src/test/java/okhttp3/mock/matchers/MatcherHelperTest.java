@@ -0,0 +1,46 @@
+package okhttp3.mock.matchers;
+
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static okhttp3.mock.matchers.MatcherHelper.exact;
+import static okhttp3.mock.matchers.MatcherHelper.exactText;
+import static okhttp3.mock.matchers.MatcherHelper.prefix;
+import static okhttp3.mock.matchers.MatcherHelper.prefixText;
+import static okhttp3.mock.matchers.MatcherHelper.suffix;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MatcherHelperTest {
+
+    @Test
+    public void testExactText() {
+        assertEquals("https://test.com/a?b=c", exactText(exact("https://test.com/a?b=c")));
+    }
+
+    @Test
+    public void testExactText_Quoted() {
+        assertEquals("a\\Eb\\Q", exactText(exact("a\\Eb\\Q")));
+    }
+
+    @Test
+    public void testExactText_NotLiteral() {
+        assertNull(exactText(Pattern.compile("/aPath/(\\w+)")));
+        assertNull(exactText(prefix("/aPath")));
+        assertNull(exactText(Pattern.compile(Pattern.quote("aText"), Pattern.CASE_INSENSITIVE)));
+    }
+
+    @Test
+    public void testPrefixText() {
+        assertEquals("/aPath/", prefixText(prefix("/aPath/")));
+    }
+
+    @Test
+    public void testPrefixText_NotLiteral() {
+        assertNull(prefixText(exact("/aPath/")));
+        assertNull(prefixText(suffix("/aPath/")));
+        assertNull(prefixText(Pattern.compile("^/a(Path).*$")));
+    }
+
+}
@@ -0,0 +1,92 @@
+package okhttp3.mock.matchers;
+
+import okhttp3.Request;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PathTemplateMatcherTest {
+
+    private static Request request(String path) {
+        return new Request.Builder().url("http://test.com" + path).build();
+    }
+
+    @Test
+    public void testMatches() {
+        PathTemplateMatcher matcher = new PathTemplateMatcher("/users/{id}/orders/{orderId}");
+
+        assertTrue(matcher.matches(request("/users/1/orders/2")));
+        assertTrue(matcher.matches(request("/users/1/orders/2?page=3")));
+        assertFalse(matcher.matches(request("/users/1/orders")));
+        assertFalse(matcher.matches(request("/users/1/orders/2/items")));
+        assertFalse(matcher.matches(request("/users//orders/2")));
+        assertFalse(matcher.matches(request("/customers/1/orders/2")));
+    }
+
+    @Test
+    public void testMatches_Root() {
+        PathTemplateMatcher matcher = new PathTemplateMatcher("/");
+
+        assertTrue(matcher.matches(request("/")));
+        assertFalse(matcher.matches(request("/users")));
+    }
+
+    @Test
+    public void testVariables() {
+        PathTemplateMatcher matcher = new PathTemplateMatcher("/users/{id}/orders/{orderId}");
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("id", "a user");
+        expected.put("orderId", "2");
+
+        assertEquals(expected, matcher.variables(request("/users/a%20user/orders/2")).asMap());
+        assertNull(matcher.variables(request("/users/1")));
+    }
+
+    @Test
+    public void testVariables_CapturedWhileMatching() {
+        PathTemplateMatcher matcher = new PathTemplateMatcher("/users/{id}");
+        RequestView view = RequestView.of(request("/users/1"));
+
+        assertTrue(matcher.matches(view));
+        PathVariables variables = matcher.variables(view);
+        assertEquals(Collections.singletonMap("id", "1"), variables.asMap());
+        assertSame(variables, matcher.variables(view));
+    }
+
+    @Test
+    public void testLiteralSegments() {
+        assertEquals(Arrays.asList("users", null, "orders", null),
+            new PathTemplateMatcher("/users/{id}/orders/{orderId}").getLiteralSegments());
+        assertEquals(Collections.singletonList(""), new PathTemplateMatcher("/").getLiteralSegments());
+    }
+
+    @Test
+    public void testVariablesOf_NoTemplate() {
+        assertTrue(PathVariables.of(request("/users/1")).asMap().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalid_Relative() {
+        new PathTemplateMatcher("users/{id}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalid_PartialVariable() {
+        new PathTemplateMatcher("/users/id-{id}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalid_DuplicatedVariable() {
+        new PathTemplateMatcher("/users/{id}/friends/{id}");
+    }
+
+}
@@ -0,0 +1,74 @@
+package okhttp3.mock.matchers;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static okhttp3.mock.MediaTypes.MEDIATYPE_JSON;
+import static okhttp3.mock.matchers.MatcherHelper.any;
+import static okhttp3.mock.matchers.MatcherHelper.exact;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RequestViewTest {
+
+    @Test
+    public void testBodyIsReadOnce() {
+        AtomicInteger reads = new AtomicInteger();
+        RequestView view = RequestView.of(new Request.Builder()
+            .url("http://test.com")
+            .post(new RequestBody() {
+
+                @Override
+                public MediaType contentType() {
+                    return MEDIATYPE_JSON;
+                }
+
+                @Override
+                public void writeTo(BufferedSink sink) throws IOException {
+                    reads.incrementAndGet();
+                    sink.writeUtf8("{}");
+                }
+
+            })
+            .build());
+
+        for (int i = 0; i < 50; i++) {
+            new BodyMatcher(exact("body" + i)).matches(view);
+        }
+        assertTrue(new BodyMatcher(exact("{}")).matches(view));
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    public void testQueryParameter() {
+        RequestView view = RequestView.of(new Request.Builder()
+            .url("http://test.com/?a=1&b&a=2&c=%20")
+            .build());
+
+        assertEquals("1", view.queryParameter("a"));
+        assertNull(view.queryParameter("b"));
+        assertEquals(" ", view.queryParameter("c"));
+        assertNull(view.queryParameter("d"));
+        assertTrue(new QueryParamMatcher("a", exact("1")).matches(view));
+    }
+
+    @Test
+    public void testHeader() {
+        RequestView view = RequestView.of(new Request.Builder()
+            .url("http://test.com")
+            .header("a", "aValue")
+            .build());
+
+        assertEquals("aValue", view.header("A"));
+        assertNull(view.header("b"));
+        assertTrue(new HeaderMatcher("a", any()).matches(view));
+    }
+
+}
@@ -13,5 +13,6 @@ dependencyResolutionManagement {
 rootProject.name = "okhttp-client-mock"
 
 include(":library")
+include(":benchmarks")
 
 project(":library").name = "mock-client"